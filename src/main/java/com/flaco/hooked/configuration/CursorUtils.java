@@ -0,0 +1,49 @@
+package com.flaco.hooked.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset: codifica (fechaCreacion, id) del último
+ * elemento entregado. El cliente solo lo devuelve tal cual en la siguiente petición.
+ */
+public class CursorUtils {
+
+    private static final String SEPARADOR = "|";
+
+    public static String codificar(LocalDateTime fecha, Long id) {
+        String crudo = fecha.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor vacío o nulo = primera página
+    public static Posicion decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String crudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int corte = crudo.lastIndexOf(SEPARADOR);
+            return new Posicion(
+                    LocalDateTime.parse(crudo.substring(0, corte)),
+                    Long.valueOf(crudo.substring(corte + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public static class Posicion {
+        private final LocalDateTime fecha;
+        private final Long id;
+
+        public Posicion(LocalDateTime fecha, Long id) {
+            this.fecha = fecha;
+            this.id = id;
+        }
+
+        public LocalDateTime getFecha() { return fecha; }
+        public Long getId() { return id; }
+    }
+}
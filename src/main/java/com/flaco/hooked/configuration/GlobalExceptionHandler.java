@@ -1,6 +1,7 @@
 package com.flaco.hooked.configuration;
 
 import com.flaco.hooked.domain.response.MessageResponse;
+import com.flaco.hooked.infrastructure.security.ServicioSaturadoException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -38,6 +39,14 @@ public class GlobalExceptionHandler {
                 .body(MessageResponse.error("Cuenta bloqueada temporalmente"));
     }
 
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<MessageResponse> handleSaturado(ServicioSaturadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(e.getReintentarEnSegundos()))
+                .header("X-Service-Error", "overloaded")
+                .body(MessageResponse.error(e.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<MessageResponse> handleRuntime(RuntimeException e) {
         String msg = e.getMessage();
@@ -2,6 +2,8 @@ package com.flaco.hooked.configuration;
 
 import com.flaco.hooked.domain.service.CustomUserDetailsService;
 import com.flaco.hooked.domain.filter.JwtAuthenticationFilter;
+import com.flaco.hooked.infrastructure.security.PasswordEncoderAcotado;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -39,17 +41,28 @@ public class SecurityConfig {
     @Value("${cors.allowed-origins:*}")
     private String allowedOrigins;
 
+    @Value("${hooked.password.hash.hilos:4}")
+    private int hashHilos;
+
+    @Value("${hooked.password.hash.cola:50}")
+    private int hashCola;
+
+    @Value("${hooked.password.hash.espera-maxima-ms:5000}")
+    private long hashEsperaMaximaMs;
+
+    // BCrypt en su propio pool acotado: un pico de logins no ocupa los hilos de Tomcat
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new PasswordEncoderAcotado(new BCryptPasswordEncoder(),
+                hashHilos, hashCola, hashEsperaMaximaMs, meterRegistry);
     }
 
     @SuppressWarnings("deprecation")
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(customUserDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -59,7 +72,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AuthenticationProvider authenticationProvider) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
@@ -90,7 +104,7 @@ public class SecurityConfig {
                         // Todo lo demás requiere autenticación
                         .anyRequest().authenticated()
                 )
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,167 @@
+package com.flaco.hooked.configuration;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Compara al arrancar los índices declarados en @Table(indexes / uniqueConstraints)
+ * con information_schema.statistics. Con ddl-auto=validate Hibernate no los crea:
+ * los crean las migraciones de Flyway y este chequeo avisa si alguno falta o difiere.
+ *
+ * hooked.esquema.indices.verificacion: off, warn (solo log) o fail (no arranca).
+ * Los índices que existen en BD y no están declarados (FULLTEXT, FKs) no cuentan.
+ */
+@Component
+public class VerificadorIndices {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificadorIndices.class);
+
+    private static final String SQL_INDICES =
+            "SELECT table_name, index_name, non_unique, column_name, collation " +
+            "FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+            "ORDER BY table_name, index_name, seq_in_index";
+
+    @Value("${hooked.esquema.indices.verificacion:warn}")
+    private String modo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificar() {
+        if ("off".equalsIgnoreCase(modo)) return;
+
+        Map<String, IndiceDeclarado> actuales = leerIndicesActuales();
+        List<String> diferencias = new ArrayList<>();
+
+        for (IndiceDeclarado declarado : leerIndicesDeclarados()) {
+            IndiceDeclarado actual = declarado.nombre() != null ? actuales.get(declarado.clave()) : null;
+
+            if (actual == null) {
+                // Sin ese nombre vale uno equivalente creado antes (ddl-auto=update, UNIQUE inline de V1)
+                if (buscarPorColumnas(actuales, declarado) == null) {
+                    diferencias.add("falta " + declarado);
+                }
+            } else if (!actual.columnas().equals(declarado.columnas()) || actual.unico() != declarado.unico()) {
+                diferencias.add("difiere " + declarado + ", en BD: " + actual);
+            }
+        }
+
+        if (diferencias.isEmpty()) {
+            logger.info("Índices del esquema: coinciden con las entidades");
+            return;
+        }
+
+        String detalle = String.join("\n  ", diferencias);
+        if ("fail".equalsIgnoreCase(modo)) {
+            throw new IllegalStateException("Índices del esquema distintos a los declarados en las entidades:\n  " + detalle);
+        }
+        logger.warn("Índices del esquema distintos a los declarados en las entidades ({}):\n  {}",
+                diferencias.size(), detalle);
+    }
+
+    // ========== DECLARADOS (entidades) ==========
+
+    private List<IndiceDeclarado> leerIndicesDeclarados() {
+        List<IndiceDeclarado> declarados = new ArrayList<>();
+
+        for (EntityType<?> entidad : entityManagerFactory.getMetamodel().getEntities()) {
+            Table table = entidad.getJavaType().getAnnotation(Table.class);
+            if (table == null) continue;
+
+            String tabla = table.name().isEmpty() ? aColumna(entidad.getName()) : table.name();
+            for (Index index : table.indexes()) {
+                declarados.add(new IndiceDeclarado(tabla, index.name(), parsearColumnas(index.columnList()), index.unique()));
+            }
+            for (UniqueConstraint unique : table.uniqueConstraints()) {
+                List<String> columnas = Arrays.stream(unique.columnNames()).map(VerificadorIndices::aColumna).toList();
+                String nombre = unique.name().isEmpty() ? null : unique.name();
+                declarados.add(new IndiceDeclarado(tabla, nombre, columnas, true));
+            }
+        }
+        return declarados;
+    }
+
+    // "usuario_id, fechaCreacion DESC" -> [usuario_id, fecha_creacion DESC]
+    static List<String> parsearColumnas(String columnList) {
+        List<String> columnas = new ArrayList<>();
+        for (String parte : columnList.split(",")) {
+            String[] tokens = parte.trim().split("\\s+");
+            boolean desc = tokens.length > 1 && tokens[1].equalsIgnoreCase("DESC");
+            columnas.add(aColumna(tokens[0]) + (desc ? " DESC" : ""));
+        }
+        return columnas;
+    }
+
+    // Mismo criterio que la naming strategy de Spring: fechaCreacion -> fecha_creacion
+    private static String aColumna(String nombre) {
+        return nombre.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT);
+    }
+
+    // ========== ACTUALES (information_schema) ==========
+
+    private Map<String, IndiceDeclarado> leerIndicesActuales() {
+        Map<String, IndiceDeclarado> actuales = new LinkedHashMap<>();
+
+        jdbcTemplate.query(SQL_INDICES, rs -> {
+            String tabla = rs.getString("table_name").toLowerCase(Locale.ROOT);
+            String nombre = rs.getString("index_name");
+            String columna = rs.getString("column_name");
+            if (columna == null) return; // índice funcional, no se declara desde JPA
+
+            String desc = "D".equals(rs.getString("collation")) ? " DESC" : "";
+            IndiceDeclarado indice = actuales.computeIfAbsent(tabla + "." + nombre.toLowerCase(Locale.ROOT),
+                    k -> new IndiceDeclarado(tabla, nombre, new ArrayList<>(), false));
+            indice.columnas().add(columna.toLowerCase(Locale.ROOT) + desc);
+
+            if (rs.getInt("non_unique") == 0 && !indice.unico()) {
+                actuales.put(indice.clave(), new IndiceDeclarado(tabla, nombre, indice.columnas(), true));
+            }
+        });
+        return actuales;
+    }
+
+    // Mismo criterio que hooked_agregar_indice (V7): mismas columnas sin importar ASC/DESC,
+    // y para un UNIQUE declarado el de la BD también tiene que serlo
+    static IndiceDeclarado buscarPorColumnas(Map<String, IndiceDeclarado> actuales, IndiceDeclarado declarado) {
+        List<String> columnas = sinDireccion(declarado.columnas());
+        return actuales.values().stream()
+                .filter(i -> i.tabla().equals(declarado.tabla())
+                        && (i.unico() || !declarado.unico())
+                        && sinDireccion(i.columnas()).equals(columnas))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static List<String> sinDireccion(List<String> columnas) {
+        return columnas.stream().map(c -> c.replace(" DESC", "")).toList();
+    }
+
+    record IndiceDeclarado(String tabla, String nombre, List<String> columnas, boolean unico) {
+
+        String clave() {
+            return tabla.toLowerCase(Locale.ROOT) + "." + nombre.toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public String toString() {
+            return (unico ? "UNIQUE " : "") + tabla + "." + (nombre != null ? nombre : "(sin nombre)") + " " + columnas;
+        }
+    }
+}
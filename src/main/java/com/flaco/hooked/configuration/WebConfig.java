@@ -0,0 +1,28 @@
+package com.flaco.hooked.configuration;
+
+import com.flaco.hooked.infrastructure.security.UsuarioActual;
+import com.flaco.hooked.infrastructure.security.UsuarioActualArgumentResolver;
+import org.springdoc.core.utils.SpringDocUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    static {
+        // @UsuarioActual no es un parámetro de la API: que Swagger no lo muestre
+        SpringDocUtils.getConfig().addAnnotationsToIgnore(UsuarioActual.class);
+    }
+
+    @Autowired
+    private UsuarioActualArgumentResolver usuarioActualArgumentResolver;
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(usuarioActualArgumentResolver);
+    }
+}
@@ -4,6 +4,7 @@ import com.flaco.hooked.domain.refreshtoken.RefreshToken;
 import com.flaco.hooked.domain.request.*;
 import com.flaco.hooked.domain.response.*;
 import com.flaco.hooked.domain.service.*;
+import com.flaco.hooked.infrastructure.security.UsuarioActual;
 import com.flaco.hooked.model.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -17,7 +18,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @RestController
@@ -29,7 +29,7 @@ public class AuthController {
     @Autowired private JwtService jwtService;
     @Autowired private RefreshTokenService refreshTokenService;
     @Autowired private UtilsService utilsService;
-    @Autowired private com.flaco.hooked.domain.repository.UsuarioRepository usuarioRepository;
+    @Autowired private ActividadUsuarioService actividadUsuarioService;
 
     @Value("${hooked.jwt.expiration:900000}")
     private long jwtExpirationMs;
@@ -44,8 +44,10 @@ public class AuthController {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getContrasena())
         );
 
-        Usuario usuario = extractUsuario(auth);
-        actualizarRacha(usuario);
+        // Login con email/contraseña: el principal es la entidad cargada por CustomUserDetailsService
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        // Racha y último login en memoria; se escriben por lotes (sin save() del usuario)
+        actividadUsuarioService.registrarLogin(usuario);
         AuthTokens tokens = generateTokens(usuario, httpRequest);
 
         return buildLoginResponse(tokens, usuario, HttpStatus.OK);
@@ -108,9 +110,9 @@ public class AuthController {
     // ========== LOGOUT ALL ==========
     @PostMapping("/logout-all")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<Void> logoutAll(Authentication authentication) {
-        Usuario usuario = extractUsuario(authentication);
+    public ResponseEntity<Void> logoutAll(@UsuarioActual Usuario usuario) {
         refreshTokenService.revocarTodosTokensDelUsuario(usuario);
+        jwtService.revocarTokensDelUsuario(usuario.getId());
 
         return ResponseEntity.noContent()
                 .header("X-Logout-All-Success", "true")
@@ -121,8 +123,7 @@ public class AuthController {
     // ========== SESIONES ACTIVAS ==========
     @GetMapping("/sessions")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getSesionesActivas(Authentication authentication) {
-        Usuario usuario = extractUsuario(authentication);
+    public ResponseEntity<?> getSesionesActivas(@UsuarioActual Usuario usuario) {
         var sesiones = refreshTokenService.obtenerSesionesActivas(usuario);
 
         return ResponseEntity.ok()
@@ -132,41 +133,6 @@ public class AuthController {
 
     // ========== MÉTODOS PRIVADOS ========== //
 
-    private void actualizarRacha(Usuario usuario) {
-        LocalDateTime ahora = LocalDateTime.now();
-        LocalDateTime ultimoLogin = usuario.getUltimoLogin();
-
-        if (ultimoLogin == null) {
-            // Primer login de su vida
-            usuario.setRachaActual(1);
-        } else {
-            LocalDate hoy = ahora.toLocalDate();
-            LocalDate diaUltimoLogin = ultimoLogin.toLocalDate();
-            long diasDiferencia = java.time.temporal.ChronoUnit.DAYS.between(diaUltimoLogin, hoy);
-
-            if (diasDiferencia == 0) {
-                // Ya hizo login hoy, no cambia nada
-            } else if (diasDiferencia == 1) {
-                // Vino ayer, racha sube
-                usuario.setRachaActual(usuario.getRachaActual() + 1);
-            } else {
-                // Faltó más de un día, racha se rompe
-                usuario.setRachaActual(1);
-            }
-        }
-
-        usuario.setUltimoLogin(ahora);
-        usuarioRepository.save(usuario);
-    }
-
-    private Usuario extractUsuario(Authentication authentication) {
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof Usuario) {
-            return (Usuario) principal;
-        }
-        throw new RuntimeException("Tipo de usuario no soportado");
-    }
-
     private AuthTokens generateTokens(Usuario usuario, HttpServletRequest request) {
         String accessToken = jwtService.generarToken(usuario);
         String dispositivo = utilsService.obtenerInfoDispositivo(request);
@@ -47,15 +47,22 @@ public class CategoriaController {
     @GetMapping("/paginadas")
     public ResponseEntity<PaginatedResponse<CategoriaResponse>> listarPaginadas(
             @RequestParam(defaultValue = "0") int pagina,
-            @RequestParam(defaultValue = "10") int tamano) {
+            @RequestParam(defaultValue = "10") int tamano,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         PaginatedResponse<CategoriaResponse> resultado =
-                categoriaService.obtenerCategoriasPaginadas(pagina, tamano);
+                categoriaService.obtenerCategoriasPaginadas(pagina, tamano, conTotal);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Current-Page", String.valueOf(resultado.getPaginaActual()));
+        headers.add("X-Has-Next", String.valueOf(!resultado.isEsUltimaPagina()));
+        if (resultado.isConTotal()) {
+            headers.add("X-Total-Categories", String.valueOf(resultado.getTotalElementos()));
+            headers.add("X-Total-Pages", String.valueOf(resultado.getTotalPaginas()));
+        }
 
         return ResponseEntity.ok()
-                .header("X-Total-Categories", String.valueOf(resultado.getTotalElementos()))
-                .header("X-Total-Pages", String.valueOf(resultado.getTotalPaginas()))
-                .header("X-Current-Page", String.valueOf(resultado.getPaginaActual()))
+                .headers(headers)
                 .body(resultado);
     }
 
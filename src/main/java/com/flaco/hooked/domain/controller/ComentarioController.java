@@ -3,12 +3,12 @@ package com.flaco.hooked.domain.controller;
 import com.flaco.hooked.domain.request.*;
 import com.flaco.hooked.domain.response.*;
 import com.flaco.hooked.domain.service.ComentarioService;
+import com.flaco.hooked.infrastructure.security.UsuarioActual;
 import com.flaco.hooked.model.Usuario;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,9 +26,8 @@ public class ComentarioController {
     @PostMapping
     public ResponseEntity<ComentarioResponse> crear(
             @Valid @RequestBody CrearComentarioRequest request,
-            Authentication auth) {
+            @UsuarioActual Usuario usuario) {
 
-        Usuario usuario = extractUsuario(auth);
         ComentarioResponse creado = comentarioService.crearComentario(request, usuario);
 
         return ResponseEntity.status(HttpStatus.CREATED)
@@ -49,9 +48,8 @@ public class ComentarioController {
     public ResponseEntity<ComentarioResponse> actualizar(
             @PathVariable @Positive Long id,
             @Valid @RequestBody ActualizarComentarioRequest request,
-            Authentication auth) {
+            @UsuarioActual Usuario usuario) {
 
-        Usuario usuario = extractUsuario(auth);
         ComentarioResponse actualizado = comentarioService.actualizarComentario(id, request, usuario);
 
         return ResponseEntity.ok()
@@ -62,9 +60,8 @@ public class ComentarioController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminar(
             @PathVariable @Positive Long id,
-            Authentication auth) {
+            @UsuarioActual Usuario usuario) {
 
-        Usuario usuario = extractUsuario(auth);
         comentarioService.eliminarComentario(id, usuario);
 
         return ResponseEntity.noContent()
@@ -80,13 +77,14 @@ public class ComentarioController {
             @PathVariable @Positive Long postId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
             @RequestParam(defaultValue = "20") @Min(1) @Max(100) int tamano,
-            @RequestParam(required = false) String tipo) {
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         boolean soloPrincipales = "principales".equals(tipo);
 
         PaginatedResponse<ComentarioResponse> comentarios = soloPrincipales
-                ? comentarioService.obtenerComentariosPrincipalesPorPostPaginados(postId, pagina, tamano)
-                : comentarioService.obtenerComentariosPorPostPaginados(postId, pagina, tamano);
+                ? comentarioService.obtenerComentariosPrincipalesPorPostPaginados(postId, pagina, tamano, conTotal)
+                : comentarioService.obtenerComentariosPorPostPaginados(postId, pagina, tamano, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(comentarios, soloPrincipales ? "main-comments" : "all-comments"))
@@ -97,16 +95,33 @@ public class ComentarioController {
     public ResponseEntity<PaginatedResponse<ComentarioResponse>> principales(
             @PathVariable @Positive Long postId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
-            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int tamano) {
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int tamano,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         PaginatedResponse<ComentarioResponse> comentarios =
-                comentarioService.obtenerComentariosPrincipalesPorPostPaginados(postId, pagina, tamano);
+                comentarioService.obtenerComentariosPrincipalesPorPostPaginados(postId, pagina, tamano, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(comentarios, "main-comments"))
                 .body(comentarios);
     }
 
+    // Hilo completo en una sola respuesta (en vez de /respuestas por cada comentario)
+    @GetMapping("/post/{postId}/hilo")
+    public ResponseEntity<HiloComentariosResponse> hilo(
+            @PathVariable @Positive Long postId,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(1000) int maximo) {
+
+        HiloComentariosResponse hilo = comentarioService.obtenerHiloPorPost(postId, maximo);
+
+        return ResponseEntity.ok()
+                .header("X-Query-Type", "thread")
+                .header("X-Loaded-Count", String.valueOf(hilo.getTotalCargados()))
+                .header("X-Has-More", String.valueOf(hilo.isHayMas()))
+                .header("Cache-Control", "public, max-age=180")
+                .body(hilo);
+    }
+
     // ========== CONSULTAS POR USUARIO ==========
 
     @GetMapping("/usuario/{usuarioId}")
@@ -114,13 +129,14 @@ public class ComentarioController {
             @PathVariable @Positive Long usuarioId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
             @RequestParam(defaultValue = "20") @Min(1) @Max(50) int tamano,
-            @RequestParam(required = false) String tipo) {
+            @RequestParam(required = false) String tipo,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         boolean recientes = "recientes".equals(tipo);
 
         PaginatedResponse<ComentarioResponse> comentarios = recientes
-                ? comentarioService.obtenerComentariosRecientesPorUsuarioPaginados(usuarioId, pagina, tamano)
-                : comentarioService.obtenerComentariosPorUsuarioPaginados(usuarioId, pagina, tamano);
+                ? comentarioService.obtenerComentariosRecientesPorUsuarioPaginados(usuarioId, pagina, tamano, conTotal)
+                : comentarioService.obtenerComentariosPorUsuarioPaginados(usuarioId, pagina, tamano, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(comentarios, recientes ? "user-recent" : "user-all"))
@@ -131,10 +147,11 @@ public class ComentarioController {
     public ResponseEntity<PaginatedResponse<ComentarioResponse>> recientes(
             @PathVariable @Positive Long usuarioId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
-            @RequestParam(defaultValue = "15") @Min(1) @Max(25) int tamano) {
+            @RequestParam(defaultValue = "15") @Min(1) @Max(25) int tamano,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         PaginatedResponse<ComentarioResponse> comentarios =
-                comentarioService.obtenerComentariosRecientesPorUsuarioPaginados(usuarioId, pagina, tamano);
+                comentarioService.obtenerComentariosRecientesPorUsuarioPaginados(usuarioId, pagina, tamano, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(comentarios, "user-recent"))
@@ -163,17 +180,6 @@ public class ComentarioController {
 
     // ========== MÉTODOS PRIVADOS ==========
 
-    private Usuario extractUsuario(Authentication auth) {
-        if (auth == null || !auth.isAuthenticated()) {
-            throw new RuntimeException("Autenticación requerida");
-        }
-        Object principal = auth.getPrincipal();
-        if (principal instanceof Usuario) {
-            return (Usuario) principal;
-        }
-        throw new RuntimeException("Tipo de usuario no soportado");
-    }
-
     private HttpHeaders createCommentHeaders(ComentarioResponse c, String action) {
         HttpHeaders h = new HttpHeaders();
         h.add("X-Comment-" + action, "true");
@@ -203,8 +209,11 @@ public class ComentarioController {
         h.add("X-Query-Type", type);
         h.add("X-Page-Number", String.valueOf(p.getPaginaActual()));
         h.add("X-Page-Size", String.valueOf(p.getTamanoPagina()));
-        h.add("X-Total-Elements", String.valueOf(p.getTotalElementos()));
-        h.add("X-Total-Pages", String.valueOf(p.getTotalPaginas()));
+        h.add("X-Has-Next", String.valueOf(!p.isEsUltimaPagina()));
+        if (p.isConTotal()) {
+            h.add("X-Total-Elements", String.valueOf(p.getTotalElementos()));
+            h.add("X-Total-Pages", String.valueOf(p.getTotalPaginas()));
+        }
         h.add("Cache-Control", "public, max-age=180");
         return h;
     }
@@ -3,20 +3,17 @@ package com.flaco.hooked.domain.controller;
 import com.flaco.hooked.domain.request.*;
 import com.flaco.hooked.domain.response.*;
 import com.flaco.hooked.domain.service.PostService;
-import com.flaco.hooked.model.Usuario;
-import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.infrastructure.security.UsuarioActual;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -25,79 +22,14 @@ public class PostController {
 
     @Autowired private PostService postService;
 
-    @Autowired private UsuarioRepository usuarioRepository;
-
-    // ========== MÉTODO AUXILIAR PARA EXTRAER USER ID ==========
-
-    /**
-     * Extrae el ID numérico del usuario desde el token JWT.
-     * Busca el claim "userId" primero, luego intenta parsear "sub" si es numérico.
-     * ✅ CORREGIDO: Fallback a búsqueda por email en BD si no se encuentra en JWT.
-     */
-    private Long extractUserIdFromAuth(Authentication auth) {
-        if (auth == null || !auth.isAuthenticated()) {
-            return null;
-        }
-
-        // Extraer el JWT principal
-        if (auth.getPrincipal() instanceof Jwt) {
-            Jwt jwt = (Jwt) auth.getPrincipal();
-
-            // 1. Intentar obtener userId del claim directamente
-            Object userIdClaim = jwt.getClaim("userId");
-            if (userIdClaim != null) {
-                try {
-                    return Long.valueOf(userIdClaim.toString());
-                } catch (NumberFormatException e) {
-                    // Ignorar y continuar con siguiente opción
-                }
-            }
-
-            // 2. Intentar parsear el subject como Long (por si acaso)
-            String subject = jwt.getSubject();
-            try {
-                return Long.valueOf(subject);
-            } catch (NumberFormatException e) {
-                // El subject es un email, no un ID numérico
-            }
-        }
-
-        // ✅ CORREGIDO: Fallback - buscar en BD por email
-        String email = extractEmailFromAuth(auth);
-        if (email != null && !email.isEmpty()) {
-            try {
-                Usuario usuario = usuarioRepository.findByEmail(email).orElse(null);
-                if (usuario != null) {
-                    System.out.println("DEBUG - extractUserIdFromAuth fallback BD: email=" + email + " id=" + usuario.getId());
-                    return usuario.getId();
-                }
-            } catch (Exception e) {
-                System.out.println("DEBUG - Error buscando usuario por email: " + e.getMessage());
-            }
-        }
-
-        return null;
-    }
-
-    /**
-     * Extrae el email del usuario desde el token JWT.
-     */
-    private String extractEmailFromAuth(Authentication auth) {
-        if (auth == null || !auth.isAuthenticated()) {
-            return null;
-        }
-        return auth.getName(); // Esto devuelve el "sub" del JWT (email)
-    }
-
     // ========== CRUD BÁSICO ==========
 
     @PostMapping
     public ResponseEntity<PostResponse> crearPost(
             @Valid @RequestBody CrearPostRequest request,
-            Authentication auth) {
+            @UsuarioActual Long userId) {
 
-        String email = extractEmailFromAuth(auth);
-        PostResponse creado = postService.crearPost(request, email);
+        PostResponse creado = postService.crearPost(request, userId);
 
         return ResponseEntity.created(URI.create("/api/posts/" + creado.getId()))
                 .headers(createPostHeaders(creado, "created"))
@@ -107,9 +39,7 @@ public class PostController {
     @GetMapping("/{id}")
     public ResponseEntity<PostResponse> obtenerPost(
             @PathVariable @Positive Long id,
-            Authentication auth) {
-
-        Long userId = extractUserIdFromAuth(auth);
+            @UsuarioActual(requerido = false) Long userId) {
         PostResponse post = postService.obtenerPostPorId(id, userId);
 
         return ResponseEntity.ok()
@@ -121,10 +51,9 @@ public class PostController {
     public ResponseEntity<PostResponse> actualizarPost(
             @PathVariable @Positive Long id,
             @Valid @RequestBody ActualizarPostRequest request,
-            Authentication auth) {
+            @UsuarioActual Long userId) {
 
-        String email = extractEmailFromAuth(auth);
-        PostResponse actualizado = postService.actualizarPost(id, request, email);
+        PostResponse actualizado = postService.actualizarPost(id, request, userId);
 
         return ResponseEntity.ok()
                 .headers(createPostHeaders(actualizado, "updated"))
@@ -134,10 +63,9 @@ public class PostController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarPost(
             @PathVariable @Positive Long id,
-            Authentication auth) {
+            @UsuarioActual Long userId) {
 
-        String email = extractEmailFromAuth(auth);
-        postService.eliminarPost(id, email);
+        postService.eliminarPost(id, userId);
 
         return ResponseEntity.noContent()
                 .header("X-Post-Deleted", "true")
@@ -150,16 +78,10 @@ public class PostController {
     @PostMapping("/{id}/like")
     public ResponseEntity<PostResponse> toggleLike(
             @PathVariable @Positive Long id,
-            Authentication auth) {
+            @UsuarioActual Long userId) {
 
         // Usar ID numérico para likes (más eficiente y preciso)
-        Long userId = extractUserIdFromAuth(auth);
-        String email = extractEmailFromAuth(auth);
-
-        System.out.println("DEBUG - toggleLike controller: userId=" + userId + " email=" + email);
-
-        // El método toggleLike ahora acepta ambos: userId preferido, email como fallback
-        PostResponse post = postService.toggleLike(id, userId, email);
+        PostResponse post = postService.toggleLike(id, userId, null);
 
         String action = post.getLikedByCurrentUser() ? "liked" : "unliked";
 
@@ -174,11 +96,9 @@ public class PostController {
     @DeleteMapping("/{id}/like")
     public ResponseEntity<PostResponse> quitarLike(
             @PathVariable @Positive Long id,
-            Authentication auth) {
+            @UsuarioActual Long userId) {
 
-        Long userId = extractUserIdFromAuth(auth);
-        String email = extractEmailFromAuth(auth);
-        PostResponse post = postService.quitarLike(id, userId, email);
+        PostResponse post = postService.quitarLike(id, userId, null);
 
         return ResponseEntity.ok()
                 .header("X-Unlike-Success", "true")
@@ -186,16 +106,30 @@ public class PostController {
                 .body(post);
     }
 
-    // ========== CONSULTAS SIN PAGINACIÓN (compatibilidad) ==========
+    // ========== CONSULTAS SIN PAGINACIÓN (streaming) ==========
+    // Se escriben mientras se leen, sin armar la lista en memoria. /lista-completa y
+    // /mis-posts mantienen el array JSON; /exportar devuelve NDJSON (un post por línea).
 
     @GetMapping("/lista-completa")
-    public ResponseEntity<List<PostResponse>> obtenerTodos() {
-        List<PostResponse> posts = postService.obtenerTodosPosts();
+    public ResponseEntity<StreamingResponseBody> obtenerTodos() {
+        StreamingResponseBody cuerpo = salida -> postService.exportarTodosPosts(salida, false);
 
         return ResponseEntity.ok()
-                .header("X-Total-Posts", String.valueOf(posts.size()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Total-Posts", String.valueOf(postService.contarPosts(null)))
                 .header("Cache-Control", "public, max-age=60")
-                .body(posts);
+                .body(cuerpo);
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarTodos() {
+        StreamingResponseBody cuerpo = salida -> postService.exportarTodosPosts(salida, true);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Total-Posts", String.valueOf(postService.contarPosts(null)))
+                .header("Cache-Control", "no-store")
+                .body(cuerpo);
     }
 
     // ========== CONSULTAS PAGINADAS ==========
@@ -206,24 +140,20 @@ public class PostController {
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int tamano,
             @RequestParam(required = false) Long categoriaId,
             @RequestParam(required = false) @Size(min = 2, max = 100) String buscar,
-            Authentication auth) {
+            @RequestParam(defaultValue = "true") boolean conTotal,
+            @UsuarioActual(requerido = false) Long userId) {
 
         PaginatedResponse<PostResponse> posts;
         String queryType;
 
-        // ✅ CORREGIDO: Usar ID numérico para calcular likedByCurrentUser correctamente
-        Long userId = extractUserIdFromAuth(auth);
-
-        System.out.println("DEBUG - listarPosts: userId extraído=" + userId + " email=" + extractEmailFromAuth(auth));
-
         if (buscar != null && !buscar.trim().isEmpty()) {
-            posts = postService.buscarPostsPaginados(buscar.trim(), pagina, tamano, userId);
+            posts = postService.buscarPostsPaginados(buscar.trim(), pagina, tamano, userId, conTotal);
             queryType = "search";
         } else if (categoriaId != null) {
-            posts = postService.obtenerPostsPorCategoriaPaginados(categoriaId, pagina, tamano, userId);
+            posts = postService.obtenerPostsPorCategoriaPaginados(categoriaId, pagina, tamano, userId, conTotal);
             queryType = "category";
         } else {
-            posts = postService.obtenerTodosPostsPaginados(pagina, tamano, userId);
+            posts = postService.obtenerTodosPostsPaginados(pagina, tamano, userId, conTotal);
             queryType = "list";
         }
 
@@ -237,12 +167,11 @@ public class PostController {
             @PathVariable @Positive Long usuarioId,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
             @RequestParam(defaultValue = "10") @Min(1) @Max(100) int tamano,
-            Authentication auth) {
-
-        Long userId = extractUserIdFromAuth(auth);
+            @RequestParam(defaultValue = "true") boolean conTotal,
+            @UsuarioActual(requerido = false) Long userId) {
 
         PaginatedResponse<PostResponse> posts =
-                postService.obtenerPostsPorUsuarioPaginados(usuarioId, pagina, tamano, userId);
+                postService.obtenerPostsPorUsuarioPaginados(usuarioId, pagina, tamano, userId, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(posts, "user-posts", pagina))
@@ -250,27 +179,36 @@ public class PostController {
     }
 
     @GetMapping("/mis-posts")
-    public ResponseEntity<List<PostResponse>> misPosts(Authentication auth) {
-        String email = extractEmailFromAuth(auth);
-        // Tu PostService tiene este método sin paginar
-        List<PostResponse> posts = postService.obtenerPostsPorUsuario(email);
+    public ResponseEntity<StreamingResponseBody> misPosts(@UsuarioActual Long userId) {
+        StreamingResponseBody cuerpo = salida -> postService.exportarMisPosts(userId, salida, false);
 
         return ResponseEntity.ok()
-                .header("X-Total-Posts", String.valueOf(posts.size()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Total-Posts", String.valueOf(postService.contarPosts(userId)))
                 .header("Cache-Control", "no-store, no-cache, must-revalidate")
-                .body(posts);
+                .body(cuerpo);
+    }
+
+    @GetMapping("/mis-posts/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarMisPosts(@UsuarioActual Long userId) {
+        StreamingResponseBody cuerpo = salida -> postService.exportarMisPosts(userId, salida, true);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("X-Total-Posts", String.valueOf(postService.contarPosts(userId)))
+                .header("Cache-Control", "no-store, no-cache, must-revalidate")
+                .body(cuerpo);
     }
 
     @GetMapping("/populares")
     public ResponseEntity<PaginatedResponse<PostResponse>> postsPopulares(
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
             @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano,
-            Authentication auth) {
-
-        Long userId = extractUserIdFromAuth(auth);
+            @RequestParam(defaultValue = "true") boolean conTotal,
+            @UsuarioActual(requerido = false) Long userId) {
 
         PaginatedResponse<PostResponse> posts =
-                postService.obtenerPostsPopularesPaginados(pagina, tamano, userId);
+                postService.obtenerPostsPopularesPaginados(pagina, tamano, userId, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(posts, "popular", pagina))
@@ -278,6 +216,52 @@ public class PostController {
                 .body(posts);
     }
 
+    @GetMapping("/tendencias")
+    public ResponseEntity<PaginatedResponse<PostResponse>> tendencias(
+            @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano,
+            @UsuarioActual(requerido = false) Long userId) {
+
+        PaginatedResponse<PostResponse> posts = postService.obtenerTendencias(pagina, tamano, userId);
+
+        return ResponseEntity.ok()
+                .headers(createPaginationHeaders(posts, "trending", pagina))
+                .header("X-Sort-Order", "hot-score-desc")
+                .body(posts);
+    }
+
+    // ========== FEED CON CURSOR (scroll infinito) ==========
+
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPaginatedResponse<PostResponse>> feed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano,
+            @RequestParam(required = false) Long categoriaId,
+            @UsuarioActual(requerido = false) Long userId) {
+
+        CursorPaginatedResponse<PostResponse> posts =
+                postService.obtenerFeed(cursor, tamano, categoriaId, userId);
+
+        return ResponseEntity.ok()
+                .headers(createCursorHeaders(posts, categoriaId != null ? "category-feed" : "feed"))
+                .body(posts);
+    }
+
+    @GetMapping("/usuario/{usuarioId}/feed")
+    public ResponseEntity<CursorPaginatedResponse<PostResponse>> feedPorUsuario(
+            @PathVariable @Positive Long usuarioId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano,
+            @UsuarioActual(requerido = false) Long userId) {
+
+        CursorPaginatedResponse<PostResponse> posts =
+                postService.obtenerFeedPorUsuario(usuarioId, cursor, tamano, userId);
+
+        return ResponseEntity.ok()
+                .headers(createCursorHeaders(posts, "user-feed"))
+                .body(posts);
+    }
+
     // ========== HEADERS REUTILIZABLES ==========
 
     private HttpHeaders createPostHeaders(PostResponse response, String action) {
@@ -304,8 +288,24 @@ public class PostController {
         h.add("X-Query-Type", type);
         h.add("X-Page-Number", String.valueOf(pagina));
         h.add("X-Page-Size", String.valueOf(response.getTamanoPagina()));
-        h.add("X-Total-Elements", String.valueOf(response.getTotalElementos()));
-        h.add("X-Total-Pages", String.valueOf(response.getTotalPaginas()));
+        h.add("X-Has-Next", String.valueOf(!response.isEsUltimaPagina()));
+        // Sin total (?conTotal=false) no hay COUNT del que sacar estos valores
+        if (response.isConTotal()) {
+            h.add("X-Total-Elements", String.valueOf(response.getTotalElementos()));
+            h.add("X-Total-Pages", String.valueOf(response.getTotalPaginas()));
+        }
+        h.add("Cache-Control", "no-store, no-cache, must-revalidate");
+        return h;
+    }
+
+    private HttpHeaders createCursorHeaders(CursorPaginatedResponse<?> response, String type) {
+        HttpHeaders h = new HttpHeaders();
+        h.add("X-Query-Type", type);
+        h.add("X-Page-Size", String.valueOf(response.getTamanoPagina()));
+        h.add("X-Has-More", String.valueOf(response.isHayMas()));
+        if (response.getSiguienteCursor() != null) {
+            h.add("X-Next-Cursor", response.getSiguienteCursor());
+        }
         h.add("Cache-Control", "no-store, no-cache, must-revalidate");
         return h;
     }
@@ -81,7 +81,8 @@ public class UsuarioController {
     public ResponseEntity<?> listar(
             @RequestParam(required = false) String buscar,
             @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
-            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano) {
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int tamano,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
 
         if (buscar != null && !buscar.trim().isEmpty()) {
             PaginatedResponse<UsuarioResponse> resultados =
@@ -92,7 +93,7 @@ public class UsuarioController {
         }
 
         PaginatedResponse<UsuarioResponse> usuarios =
-                usuarioService.obtenerUsuariosPaginados(pagina, tamano);
+                usuarioService.obtenerUsuariosPaginados(pagina, tamano, conTotal);
 
         return ResponseEntity.ok()
                 .headers(createPaginationHeaders(usuarios, "list"))
@@ -173,6 +174,34 @@ public class UsuarioController {
                 .body(usuarios);
     }
 
+    @GetMapping("/mas-likes")
+    public ResponseEntity<PaginatedResponse<UsuarioResponse>> masLikes(
+            @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(25) int tamano) {
+
+        PaginatedResponse<UsuarioResponse> usuarios =
+                usuarioService.obtenerUsuariosConMasLikesPaginados(pagina, tamano);
+
+        return ResponseEntity.ok()
+                .headers(createPaginationHeaders(usuarios, "ranking"))
+                .header("X-Sort-Order", "likes-received-desc")
+                .body(usuarios);
+    }
+
+    @GetMapping("/mejores-rachas")
+    public ResponseEntity<PaginatedResponse<UsuarioResponse>> mejoresRachas(
+            @RequestParam(defaultValue = "0") @PositiveOrZero int pagina,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(25) int tamano) {
+
+        PaginatedResponse<UsuarioResponse> usuarios =
+                usuarioService.obtenerMejoresRachasPaginadas(pagina, tamano);
+
+        return ResponseEntity.ok()
+                .headers(createPaginationHeaders(usuarios, "ranking"))
+                .header("X-Sort-Order", "streak-desc")
+                .body(usuarios);
+    }
+
     @GetMapping("/nuevos")
     public ResponseEntity<PaginatedResponse<UsuarioResponse>> nuevos(
             @RequestParam(defaultValue = "7") @Min(1) @Max(90) int dias,
@@ -249,7 +278,10 @@ public class UsuarioController {
         h.add("X-Query-Type", type);
         h.add("X-Page-Number", String.valueOf(p.getPaginaActual()));
         h.add("X-Page-Size", String.valueOf(p.getTamanoPagina()));
-        h.add("X-Total-Elements", String.valueOf(p.getTotalElementos()));
+        h.add("X-Has-Next", String.valueOf(!p.isEsUltimaPagina()));
+        if (p.isConTotal()) {
+            h.add("X-Total-Elements", String.valueOf(p.getTotalElementos()));
+        }
         h.add("Cache-Control", "public, max-age=120");
         return h;
     }
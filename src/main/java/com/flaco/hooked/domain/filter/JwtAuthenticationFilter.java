@@ -1,5 +1,6 @@
 package com.flaco.hooked.domain.filter;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.flaco.hooked.domain.service.CustomUserDetailsService;
 import com.flaco.hooked.domain.service.JwtService;
 import jakarta.servlet.FilterChain;
@@ -36,13 +37,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = extractJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt)) {
-                // UNA SOLA VALIDACIÓN
-                String email = jwtService.validarToken(jwt);
-
-                if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            if (StringUtils.hasText(jwt) && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Mismo token ya verificado antes: sin HMAC ni consulta a BD
+                UserDetails userDetails = jwtService.obtenerPrincipalCacheado(jwt);
+
+                if (userDetails == null) {
+                    // UNA SOLA VALIDACIÓN
+                    DecodedJWT decodedJWT = jwtService.verificarToken(jwt);
+
+                    if (decodedJWT != null) {
+                        // El principal sale de los claims, sin SELECT a usuarios
+                        userDetails = jwtService.obtenerPrincipal(decodedJWT);
+                        if (userDetails == null) {
+                            // Token sin claim userId (emitido antes de este cambio): carga por email
+                            userDetails = userDetailsService.loadUserByUsername(decodedJWT.getSubject());
+                        }
+                    }
+                }
 
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -52,7 +65,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                    logger.debug("Autenticación exitosa para: {}", email);
+                    logger.debug("Autenticación exitosa para: {}", userDetails.getUsername());
                 }
             }
         } catch (Exception ex) {
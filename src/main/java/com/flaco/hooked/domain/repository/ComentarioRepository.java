@@ -3,12 +3,14 @@ package com.flaco.hooked.domain.repository;
 import com.flaco.hooked.model.Comentario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -46,10 +48,51 @@ public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
     @Query("SELECT c FROM Comentario c WHERE c.usuario.id = :usuarioId ORDER BY c.fechaCreacion DESC")
     Page<Comentario> findComentariosRecientesByUsuarioId(@Param("usuarioId") Long usuarioId, Pageable pageable);
 
+    // ========== PAGINADOS SIN COUNT (Slice, ?conTotal=false) ==========
+
+    @EntityGraph(attributePaths = {"usuario"})
+    @Query("SELECT c FROM Comentario c WHERE c.post.id = :postId ORDER BY c.fechaCreacion ASC")
+    Slice<Comentario> findSliceByPostIdOrderByFechaCreacion(@Param("postId") Long postId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario"})
+    @Query("SELECT c FROM Comentario c WHERE c.post.id = :postId AND c.comentarioPadre IS NULL ORDER BY c.fechaCreacion ASC")
+    Slice<Comentario> findSliceComentariosPrincipalesByPostId(@Param("postId") Long postId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "post"})
+    @Query("SELECT c FROM Comentario c WHERE c.usuario.id = :usuarioId ORDER BY c.fechaCreacion DESC")
+    Slice<Comentario> findSliceByUsuarioIdOrderByFechaCreacionDesc(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario"})
+    @Query("SELECT c FROM Comentario c WHERE c.usuario.id = :usuarioId ORDER BY c.fechaCreacion DESC")
+    Slice<Comentario> findSliceComentariosRecientesByUsuarioId(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+    // ========== HILO (una consulta, el árbol se arma en memoria) ==========
+
+    // Orden de creación: un padre siempre es anterior a sus respuestas, así que
+    // cualquier prefijo de esta lista trae a los padres de todo lo que incluye
+    @EntityGraph(attributePaths = {"usuario"})
+    @Query("SELECT c FROM Comentario c WHERE c.post.id = :postId ORDER BY c.fechaCreacion ASC, c.id ASC")
+    Slice<Comentario> findHiloByPostId(@Param("postId") Long postId, Pageable pageable);
+
     // ========== CONTADORES (optimizados) ==========
 
     long countByPostId(Long postId);
 
+    // Conteo agrupado para una página de posts (evita inicializar Post.comentarios)
+    @Query("SELECT c.post.id AS id, COUNT(c) AS total FROM Comentario c " +
+            "WHERE c.post.id IN :postIds GROUP BY c.post.id")
+    List<ConteoPorId> contarPorPostIds(@Param("postIds") Collection<Long> postIds);
+
+    // Respuestas directas de una página de comentarios (evita inicializar Comentario.respuestas)
+    @Query("SELECT c.comentarioPadre.id AS id, COUNT(c) AS total FROM Comentario c " +
+            "WHERE c.comentarioPadre.id IN :comentarioIds GROUP BY c.comentarioPadre.id")
+    List<ConteoPorId> contarRespuestasPorComentarioIds(@Param("comentarioIds") Collection<Long> comentarioIds);
+
+    // Comentarios de un post agrupados por autor (para descontar usuario_stats al borrar el post)
+    @Query("SELECT c.usuario.id AS id, COUNT(c) AS total FROM Comentario c " +
+            "WHERE c.post.id = :postId GROUP BY c.usuario.id")
+    List<ConteoPorId> contarPorAutorEnPost(@Param("postId") Long postId);
+
     @Query("SELECT COUNT(c) FROM Comentario c WHERE c.comentarioPadre.id = :comentarioId")
     long countRespuestasByComentarioId(@Param("comentarioId") Long comentarioId);
 }
\ No newline at end of file
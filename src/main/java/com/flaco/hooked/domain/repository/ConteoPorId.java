@@ -0,0 +1,9 @@
+package com.flaco.hooked.domain.repository;
+
+// Proyección para conteos agrupados (GROUP BY): id agrupado + total
+public interface ConteoPorId {
+
+    Long getId();
+
+    Long getTotal();
+}
@@ -2,11 +2,14 @@ package com.flaco.hooked.domain.repository;
 
 import com.flaco.hooked.model.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -25,4 +28,20 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     void deleteByPostId(Long postId);
     @Query("SELECT COUNT(l) FROM Like l WHERE l.usuario.id = :usuarioId AND l.post.id = :postId")
     long countByUsuarioIdAndPostId(@Param("usuarioId") Long usuarioId, @Param("postId") Long postId);
+
+    // Toggle atómico: INSERT IGNORE apoyado en la UNIQUE (usuario_id, post_id).
+    // Devuelve 1 si se insertó, 0 si el like ya existía.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO likes (usuario_id, post_id, fecha_like) VALUES (:usuarioId, :postId, NOW())",
+            nativeQuery = true)
+    int insertarSiNoExiste(@Param("usuarioId") Long usuarioId, @Param("postId") Long postId);
+
+    // DELETE directo, devuelve filas afectadas (0 o 1)
+    @Modifying
+    @Query(value = "DELETE FROM likes WHERE usuario_id = :usuarioId AND post_id = :postId", nativeQuery = true)
+    int eliminarLike(@Param("usuarioId") Long usuarioId, @Param("postId") Long postId);
+
+    // Posts de una página a los que el usuario dio like (una sola consulta por página)
+    @Query("SELECT l.post.id FROM Like l WHERE l.usuario.id = :usuarioId AND l.post.id IN :postIds")
+    List<Long> findPostIdsConLikeDelUsuario(@Param("usuarioId") Long usuarioId, @Param("postIds") Collection<Long> postIds);
 }
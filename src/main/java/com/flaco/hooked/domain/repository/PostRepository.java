@@ -1,20 +1,31 @@
 package com.flaco.hooked.domain.repository;
 
 import com.flaco.hooked.model.Post;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
 
+    int FETCH_SIZE_EXPORTACION = 500;
+
     // ========== SIN PAGINACIÓN (cuidado con memoria) ==========
 
     @EntityGraph(attributePaths = {"usuario", "categoria"})
@@ -36,6 +47,26 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @EntityGraph(attributePaths = {"usuario", "categoria"})
     List<Post> findAllByOrderByLikeCountDesc();
 
+    // ========== EXPORTACIÓN EN STREAMING ==========
+    // Filas leídas del cursor de a FETCH_SIZE_EXPORTACION (useCursorFetch en la URL de
+    // MySQL) y entidades de solo lectura. Requieren transacción abierta y cerrar el Stream.
+    // La categoría no se une: el nombre sale de CategoriaCache.
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE_EXPORTACION),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Post p JOIN FETCH p.usuario ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Stream<Post> streamTodos();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE_EXPORTACION),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Post p JOIN FETCH p.usuario WHERE p.usuario.id = :usuarioId " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Stream<Post> streamPorUsuario(@Param("usuarioId") Long usuarioId);
+
     // ========== ESTADÍSTICAS ==========
 
     Integer countByUsuarioId(Long usuarioId);
@@ -43,6 +74,12 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @EntityGraph(attributePaths = {"categoria"})
     List<Post> findByUsuarioId(Long usuarioId);
 
+    long countByCategoriaId(Long categoriaId);
+
+    // Posts por categoría para el snapshot de CategoriaCache
+    @Query("SELECT p.categoria.id AS id, COUNT(p) AS total FROM Post p GROUP BY p.categoria.id")
+    List<ConteoPorId> contarPorCategoria();
+
     // ========== PAGINADOS (recomendados para producción) ==========
 
     @EntityGraph(attributePaths = {"usuario", "categoria"})
@@ -67,6 +104,110 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     @EntityGraph(attributePaths = {"usuario", "categoria"})
     Page<Post> findByUsuarioIdAndCategoriaIdOrderByFechaCreacionDesc(Long usuarioId, Long categoriaId, Pageable pageable);
 
+    // ========== PAGINADOS SIN COUNT (Slice, ?conTotal=false) ==========
+    // Misma consulta que los paginados de arriba pero sin el SELECT COUNT(*) aparte:
+    // Spring Data pide tamaño + 1 filas para saber si hay página siguiente.
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Slice<Post> findSliceByOrderByFechaCreacionDesc(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Slice<Post> findSliceByUsuarioIdOrderByFechaCreacionDesc(Long usuarioId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Slice<Post> findSliceByCategoriaIdOrderByFechaCreacionDesc(Long categoriaId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE " +
+            "LOWER(p.titulo) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
+            "LOWER(p.contenido) LIKE LOWER(CONCAT('%', :busqueda, '%')) " +
+            "ORDER BY p.fechaCreacion DESC")
+    Slice<Post> buscarPostsSinTotal(@Param("busqueda") String busqueda, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Slice<Post> findSliceByOrderByLikeCountDesc(Pageable pageable);
+
+    // ========== BÚSQUEDA FULLTEXT (índice ft_post_titulo_contenido, V3) ==========
+    // Devuelven solo la página de ids ordenada por relevancia; las entidades se
+    // cargan después con findConAutorYCategoriaByIdIn. MySQL ignora palabras de
+    // menos de 3 caracteres (innodb_ft_min_token_size), esos términos van por LIKE.
+
+    @Query(value = "SELECT p.id FROM posts p " +
+            "WHERE MATCH(p.titulo, p.contenido) AGAINST(:termino IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY MATCH(p.titulo, p.contenido) AGAINST(:termino IN NATURAL LANGUAGE MODE) DESC, " +
+            "p.fecha_creacion DESC",
+            countQuery = "SELECT COUNT(*) FROM posts p " +
+                    "WHERE MATCH(p.titulo, p.contenido) AGAINST(:termino IN NATURAL LANGUAGE MODE)",
+            nativeQuery = true)
+    Page<Long> buscarIdsPorRelevancia(@Param("termino") String termino, Pageable pageable);
+
+    @Query(value = "SELECT p.id FROM posts p " +
+            "WHERE MATCH(p.titulo, p.contenido) AGAINST(:termino IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY MATCH(p.titulo, p.contenido) AGAINST(:termino IN NATURAL LANGUAGE MODE) DESC, " +
+            "p.fecha_creacion DESC",
+            nativeQuery = true)
+    Slice<Long> buscarIdsPorRelevanciaSinTotal(@Param("termino") String termino, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    List<Post> findConAutorYCategoriaByIdIn(Collection<Long> ids);
+
+    // ========== TENDENCIAS (hot_score, V8) ==========
+    // hot_score no está mapeado en Post: lo escribe solo TendenciasService por JDBC.
+    // Recorre idx_post_hot_score (hot_score DESC, id DESC) y corta en la página.
+
+    @Query(value = "SELECT p.id FROM posts p ORDER BY p.hot_score DESC, p.id DESC", nativeQuery = true)
+    Slice<Long> buscarIdsTendencias(Pageable pageable);
+
+    // ========== FEED KEYSET (cursor) ==========
+    // Seek sobre (fechaCreacion, id) en vez de OFFSET: el coste no crece con la
+    // profundidad y no hay COUNT(*). El Pageable solo aporta el LIMIT (tamaño + 1).
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedInicio(Pageable limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE p.fechaCreacion < :fecha " +
+            "OR (p.fechaCreacion = :fecha AND p.id < :id) " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedDespuesDe(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE p.categoria.id = :categoriaId " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedCategoriaInicio(@Param("categoriaId") Long categoriaId, Pageable limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE p.categoria.id = :categoriaId " +
+            "AND (p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.id < :id)) " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedCategoriaDespuesDe(@Param("categoriaId") Long categoriaId, @Param("fecha") LocalDateTime fecha,
+                                      @Param("id") Long id, Pageable limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE p.usuario.id = :usuarioId " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedUsuarioInicio(@Param("usuarioId") Long usuarioId, Pageable limite);
+
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    @Query("SELECT p FROM Post p WHERE p.usuario.id = :usuarioId " +
+            "AND (p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.id < :id)) " +
+            "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<Post> feedUsuarioDespuesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+                                    @Param("id") Long id, Pageable limite);
+
+    // ========== LIKES ==========
+
+    // like_count se mantiene desde LikeCounterService (deltas en batch)
+    @EntityGraph(attributePaths = {"usuario", "categoria"})
+    Optional<Post> findConAutorYCategoriaById(Long id);
+
+    // SELECT ... FOR UPDATE: el flush de likes espera a que se borre el post, así el
+    // like_count que se descuenta de usuario_stats es el último confirmado
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Post p WHERE p.id = :id")
+    Optional<Post> findParaEliminarById(@Param("id") Long id);
+
     // ========== PARA EDICIÓN (carga comentarios) ==========
 
     @EntityGraph(attributePaths = {"usuario", "categoria", "comentarios"})
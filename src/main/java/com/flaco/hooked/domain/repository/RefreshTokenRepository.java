@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,16 +18,15 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
 
     Optional<RefreshToken> findByTokenAndActivoTrue(String token);
 
+    // Confirmación en BD de un token que RefreshTokenStore tiene en memoria
+    boolean existsByTokenAndActivoTrue(String token);
+
     List<RefreshToken> findByUsuarioAndActivoTrueOrderByFechaCreacionDesc(Usuario usuario);
 
     @Modifying
     @Query("UPDATE RefreshToken rt SET rt.activo = false WHERE rt.usuario = :usuario")
     void desactivarTodosTokensDelUsuario(@Param("usuario") Usuario usuario);
 
-    @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.fechaExpiracion < :fechaLimite OR rt.activo = false")
-    void eliminarTokensExpiradosOInactivos(@Param("fechaLimite") LocalDateTime fechaLimite);
-
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.usuario = :usuario AND rt.activo = true")
     int contarTokensActivosDelUsuario(@Param("usuario") Usuario usuario);
 
@@ -34,6 +34,14 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("UPDATE RefreshToken rt SET rt.activo = false WHERE rt.token = :token")
     void desactivarToken(@Param("token") String token);
 
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.activo = false WHERE rt.token IN :tokens")
+    void desactivarTokens(@Param("tokens") Collection<String> tokens);
+
+    // Carga inicial de RefreshTokenStore
+    @Query("SELECT rt FROM RefreshToken rt WHERE rt.activo = true AND rt.fechaExpiracion > :ahora")
+    List<RefreshToken> findActivosVigentes(@Param("ahora") LocalDateTime ahora);
+
     // Método adicional para encontrar tokens por usuario (útil para debugging)
     List<RefreshToken> findByUsuario(Usuario usuario);
     List<RefreshToken> findByUsuarioAndActivoTrueOrderByFechaCreacionAsc(Usuario usuario);
@@ -3,7 +3,7 @@ package com.flaco.hooked.domain.repository;
 import com.flaco.hooked.model.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,20 +21,37 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     // ========== BÚSQUEDAS BÁSICAS ==========
 
-    @EntityGraph(attributePaths = {"posts"})
     List<Usuario> findByNombreContainingIgnoreCaseOrEmailContainingIgnoreCase(String nombre, String email);
 
-    @EntityGraph(attributePaths = {"posts"})
-    Page<Usuario> findAllByOrderByFechaRegistroDesc(Pageable pageable);
+    // ========== PAGINADOS EN DOS FASES ==========
+    // Solo la página de ids (LIMIT/OFFSET en SQL); los usuarios se cargan después con
+    // findAllById y las estadísticas salen de usuario_stats. Sin fetch de la colección
+    // posts, que obligaba a Hibernate a paginar en memoria el JOIN completo.
 
-    @EntityGraph(attributePaths = {"posts"})
-    Page<Usuario> findByNombreContainingIgnoreCaseOrEmailContainingIgnoreCaseOrderByFechaRegistroDesc(
-            String nombre, String email, Pageable pageable);
+    @Query(value = "SELECT u.id FROM Usuario u ORDER BY u.fechaRegistro DESC, u.id DESC",
+            countQuery = "SELECT COUNT(u) FROM Usuario u")
+    Page<Long> findIdsOrderByFechaRegistroDesc(Pageable pageable);
+
+    // Sin COUNT (?conTotal=false)
+    @Query("SELECT u.id FROM Usuario u ORDER BY u.fechaRegistro DESC, u.id DESC")
+    Slice<Long> findIdsSliceOrderByFechaRegistroDesc(Pageable pageable);
+
+    @Query(value = "SELECT u.id FROM Usuario u WHERE " +
+            "LOWER(u.nombre) LIKE LOWER(CONCAT('%', :termino, '%')) OR " +
+            "LOWER(u.email) LIKE LOWER(CONCAT('%', :termino, '%')) " +
+            "ORDER BY u.fechaRegistro DESC, u.id DESC",
+            countQuery = "SELECT COUNT(u) FROM Usuario u WHERE " +
+                    "LOWER(u.nombre) LIKE LOWER(CONCAT('%', :termino, '%')) OR " +
+                    "LOWER(u.email) LIKE LOWER(CONCAT('%', :termino, '%'))")
+    Page<Long> buscarIdsPorNombreOEmail(@Param("termino") String termino, Pageable pageable);
 
     // ========== FILTROS ESPECIALIZADOS ==========
 
-    @Query("SELECT u FROM Usuario u WHERE u.tagsString LIKE %:tag% ORDER BY u.fechaRegistro DESC")
-    Page<Usuario> findByTagContaining(@Param("tag") String tag, Pageable pageable);
+    // Coincidencia exacta sobre usuario_tags (range scan en idx_usuario_tags_tag);
+    // el tag debe llegar normalizado con Usuario.normalizarTag
+    @Query(value = "SELECT u FROM Usuario u JOIN u.tagsNormalizados t WHERE t = :tag ORDER BY u.fechaRegistro DESC",
+            countQuery = "SELECT COUNT(u) FROM Usuario u JOIN u.tagsNormalizados t WHERE t = :tag")
+    Page<Usuario> findByTag(@Param("tag") String tag, Pageable pageable);
 
     Page<Usuario> findByUltimaActividadAfterOrderByUltimaActividadDesc(
             LocalDateTime fechaLimite, Pageable pageable);
@@ -44,19 +61,16 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Page<Usuario> findByUbicacionPreferidaContainingIgnoreCaseOrderByFechaRegistroDesc(
             String ubicacion, Pageable pageable);
 
-    // ========== RANKING (OPTIMIZADO) ==========
-
-    // Versión optimizada: usa subquery en lugar de GROUP BY en memoria
-    @Query(value = """
-        SELECT u.* FROM usuarios u 
-        LEFT JOIN (
-            SELECT usuario_id, COUNT(*) as post_count 
-            FROM posts 
-            GROUP BY usuario_id
-        ) p ON u.id = p.usuario_id 
-        ORDER BY COALESCE(p.post_count, 0) DESC, u.fecha_registro DESC
-        """, nativeQuery = true)
-    Page<Usuario> findUsuariosMasActivos(Pageable pageable);
+    // ========== RANKING DE RACHAS (idx_usuario_racha, V9) ==========
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.rachaActual > 0 ORDER BY u.rachaActual DESC, u.id DESC")
+    Slice<Long> rankingPorRacha(Pageable pageable);
+
+    // ========== CARGA POR LOTES DE ID (índice de búsqueda) ==========
+
+    // Keyset sobre la PK: orden estable y cada lote arranca donde terminó el anterior
+    @Query("SELECT u FROM Usuario u WHERE u.id > :desdeId ORDER BY u.id ASC")
+    List<Usuario> findLoteDesdeId(@Param("desdeId") Long desdeId, Pageable pageable);
 
     // ========== RECIENTES Y BÚSQUEDA ==========
 
@@ -0,0 +1,47 @@
+package com.flaco.hooked.domain.repository;
+
+import com.flaco.hooked.model.UsuarioStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UsuarioStatsRepository extends JpaRepository<UsuarioStats, Long> {
+
+    // Fila en 0 al registrarse (para que entre a los rankings desde el alta)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO usuario_stats (usuario_id) VALUES (:usuarioId)", nativeQuery = true)
+    int crearSiFalta(@Param("usuarioId") Long usuarioId);
+
+    // ========== INCREMENTOS (upsert: crea la fila si el usuario aún no tiene) ==========
+
+    @Modifying
+    @Query(value = "INSERT INTO usuario_stats (usuario_id, total_posts) VALUES (:usuarioId, GREATEST(:delta, 0)) " +
+            "ON DUPLICATE KEY UPDATE total_posts = GREATEST(total_posts + :delta, 0)",
+            nativeQuery = true)
+    int sumarPosts(@Param("usuarioId") Long usuarioId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO usuario_stats (usuario_id, total_likes_recibidos) VALUES (:usuarioId, GREATEST(:delta, 0)) " +
+            "ON DUPLICATE KEY UPDATE total_likes_recibidos = GREATEST(total_likes_recibidos + :delta, 0)",
+            nativeQuery = true)
+    int sumarLikesRecibidos(@Param("usuarioId") Long usuarioId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "INSERT INTO usuario_stats (usuario_id, total_comentarios) VALUES (:usuarioId, GREATEST(:delta, 0)) " +
+            "ON DUPLICATE KEY UPDATE total_comentarios = GREATEST(total_comentarios + :delta, 0)",
+            nativeQuery = true)
+    int sumarComentarios(@Param("usuarioId") Long usuarioId, @Param("delta") int delta);
+
+    // ========== RANKINGS (página de ids por índice, V9) ==========
+
+    @Query("SELECT s.usuarioId FROM UsuarioStats s ORDER BY s.totalPosts DESC, s.usuarioId DESC")
+    Slice<Long> rankingPorPosts(Pageable pageable);
+
+    @Query("SELECT s.usuarioId FROM UsuarioStats s ORDER BY s.totalLikesRecibidos DESC, s.usuarioId DESC")
+    Slice<Long> rankingPorLikesRecibidos(Pageable pageable);
+}
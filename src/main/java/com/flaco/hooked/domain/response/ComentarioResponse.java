@@ -15,7 +15,9 @@ public class ComentarioResponse {
 
     public ComentarioResponse() {}
 
-    public ComentarioResponse(Comentario comentario) {
+    // totalRespuestas lo calcula el servicio (conteo agrupado por página o el árbol
+    // del hilo): el mapeo no toca la colección lazy respuestas
+    public ComentarioResponse(Comentario comentario, int totalRespuestas) {
         this.id = comentario.getId();
         this.contenido = comentario.getContenido();
         this.fechaCreacion = comentario.getFechaCreacion();
@@ -26,9 +28,7 @@ public class ComentarioResponse {
         this.postId = comentario.getPost() != null
                 ? comentario.getPost().getId()
                 : null;
-        this.totalRespuestas = comentario.getRespuestas() != null
-                ? comentario.getRespuestas().size()
-                : 0;
+        this.totalRespuestas = totalRespuestas;
     }
 
     // Getters y setters
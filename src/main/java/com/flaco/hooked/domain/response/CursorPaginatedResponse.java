@@ -0,0 +1,64 @@
+package com.flaco.hooked.domain.response;
+
+import java.util.List;
+
+// Página de un feed keyset: sin totales, solo el cursor para pedir la siguiente
+public class CursorPaginatedResponse<T> {
+
+    private List<T> contenido;
+    private String siguienteCursor;
+    private boolean hayMas;
+    private int tamanoPagina;
+
+    public CursorPaginatedResponse() {}
+
+    public CursorPaginatedResponse(List<T> contenido, String siguienteCursor, boolean hayMas, int tamanoPagina) {
+        this.contenido = contenido;
+        this.siguienteCursor = siguienteCursor;
+        this.hayMas = hayMas;
+        this.tamanoPagina = tamanoPagina;
+    }
+
+    // GETTERS Y SETTERS
+    public List<T> getContenido() {
+        return contenido;
+    }
+
+    public void setContenido(List<T> contenido) {
+        this.contenido = contenido;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public boolean isHayMas() {
+        return hayMas;
+    }
+
+    public void setHayMas(boolean hayMas) {
+        this.hayMas = hayMas;
+    }
+
+    public int getTamanoPagina() {
+        return tamanoPagina;
+    }
+
+    public void setTamanoPagina(int tamanoPagina) {
+        this.tamanoPagina = tamanoPagina;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPaginatedResponse{" +
+                "contenido=" + (contenido != null ? contenido.size() + " elementos" : "null") +
+                ", siguienteCursor='" + siguienteCursor + '\'' +
+                ", hayMas=" + hayMas +
+                ", tamanoPagina=" + tamanoPagina +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.flaco.hooked.domain.response;
+
+import com.flaco.hooked.model.Comentario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hilo completo de un post: comentarios principales con sus respuestas anidadas
+public class HiloComentariosResponse {
+
+    private Long postId;
+    private List<NodoComentario> comentarios;
+    private int totalCargados;
+    private boolean hayMas;
+
+    public HiloComentariosResponse() {}
+
+    public HiloComentariosResponse(Long postId, List<NodoComentario> comentarios, int totalCargados, boolean hayMas) {
+        this.postId = postId;
+        this.comentarios = comentarios;
+        this.totalCargados = totalCargados;
+        this.hayMas = hayMas;
+    }
+
+    // GETTERS Y SETTERS
+    public Long getPostId() { return postId; }
+    public void setPostId(Long postId) { this.postId = postId; }
+
+    public List<NodoComentario> getComentarios() { return comentarios; }
+    public void setComentarios(List<NodoComentario> comentarios) { this.comentarios = comentarios; }
+
+    public int getTotalCargados() { return totalCargados; }
+    public void setTotalCargados(int totalCargados) { this.totalCargados = totalCargados; }
+
+    public boolean isHayMas() { return hayMas; }
+    public void setHayMas(boolean hayMas) { this.hayMas = hayMas; }
+
+    // Clase interna: un comentario del hilo con sus respuestas
+    public static class NodoComentario extends ComentarioResponse {
+        private List<NodoComentario> respuestas = new ArrayList<>();
+
+        public NodoComentario() {}
+
+        // totalRespuestas se completa al armar el árbol
+        public NodoComentario(Comentario comentario) {
+            super(comentario, 0);
+        }
+
+        public List<NodoComentario> getRespuestas() { return respuestas; }
+        public void setRespuestas(List<NodoComentario> respuestas) { this.respuestas = respuestas; }
+    }
+}
@@ -1,6 +1,7 @@
 package com.flaco.hooked.domain.response;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import java.util.List;
 
 public class PaginatedResponse<T> {
@@ -13,18 +14,29 @@ public class PaginatedResponse<T> {
     private boolean esUltimaPagina;
     private boolean esPrimeraPagina;
     private boolean estaVacia;
+    private boolean conTotal;
 
     public PaginatedResponse() {}
 
-    public PaginatedResponse(Page<T> page) {
-        this.contenido = page.getContent();
-        this.paginaActual = page.getNumber();
-        this.totalPaginas = page.getTotalPages();
-        this.totalElementos = page.getTotalElements();
-        this.tamanoPagina = page.getSize();
-        this.esUltimaPagina = page.isLast();
-        this.esPrimeraPagina = page.isFirst();
-        this.estaVacia = page.isEmpty();
+    // Page trae totales (COUNT); un Slice solo sabe si hay página siguiente
+    // y los totales quedan en -1 con conTotal = false
+    public PaginatedResponse(Slice<T> slice) {
+        this.contenido = slice.getContent();
+        this.paginaActual = slice.getNumber();
+        this.tamanoPagina = slice.getSize();
+        this.esUltimaPagina = slice.isLast();
+        this.esPrimeraPagina = slice.isFirst();
+        this.estaVacia = slice.isEmpty();
+
+        if (slice instanceof Page<T> page) {
+            this.totalPaginas = page.getTotalPages();
+            this.totalElementos = page.getTotalElements();
+            this.conTotal = true;
+        } else {
+            this.totalPaginas = -1;
+            this.totalElementos = -1;
+            this.conTotal = false;
+        }
     }
 
     // GETTERS Y SETTERS
@@ -92,6 +104,14 @@ public class PaginatedResponse<T> {
         this.estaVacia = estaVacia;
     }
 
+    public boolean isConTotal() {
+        return conTotal;
+    }
+
+    public void setConTotal(boolean conTotal) {
+        this.conTotal = conTotal;
+    }
+
     // METODO POR SI ALGO NO FUNCIONA
     @Override
     public String toString() {
@@ -103,6 +123,7 @@ public class PaginatedResponse<T> {
                 ", tamanoPagina=" + tamanoPagina +
                 ", esUltimaPagina=" + esUltimaPagina +
                 ", esPrimeraPagina=" + esPrimeraPagina +
+                ", conTotal=" + conTotal +
                 '}';
     }
 }
\ No newline at end of file
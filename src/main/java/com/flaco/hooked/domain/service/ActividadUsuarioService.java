@@ -0,0 +1,154 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.model.Usuario;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Actividad de usuarios write-behind: último login, racha y última actividad se
+ * anotan en memoria y un flush periódico los escribe en usuarios con un solo
+ * UPDATE por lotes. Antes cada login guardaba la fila completa del usuario.
+ *
+ * Las lecturas mezclan lo pendiente (pendiente(), ultimaActividad()); las consultas
+ * que filtran por ultima_actividad en BD lo ven con el próximo flush. Ninguna lectura
+ * fuerza un flush: eso volvería a escribir en cada petición.
+ */
+@Service
+public class ActividadUsuarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActividadUsuarioService.class);
+
+    // COALESCE: cada campo solo se toca si hay valor pendiente para él
+    private static final String SQL_APLICAR =
+            "UPDATE usuarios SET " +
+            "ultimo_login = COALESCE(?, ultimo_login), " +
+            "racha_actual = COALESCE(?, racha_actual), " +
+            "ultima_actividad = COALESCE(?, ultima_actividad) " +
+            "WHERE id = ?";
+
+    private final Map<Long, Actividad> pendientes = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // ========== REGISTRO ==========
+
+    /**
+     * Login: sube, mantiene o reinicia la racha según el día del último login
+     * (el pendiente en memoria si lo hay, si no el de la entidad).
+     */
+    public void registrarLogin(Usuario usuario) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        pendientes.compute(usuario.getId(), (id, actual) -> {
+            LocalDateTime ultimoLogin = actual != null && actual.ultimoLogin() != null
+                    ? actual.ultimoLogin() : usuario.getUltimoLogin();
+            int racha = actual != null && actual.rachaActual() != null
+                    ? actual.rachaActual() : usuario.getRachaActual();
+
+            int nuevaRacha = calcularRacha(ultimoLogin, racha, ahora.toLocalDate());
+            LocalDateTime ultimaActividad = actual != null ? actual.ultimaActividad() : null;
+            return new Actividad(ahora, nuevaRacha, ultimaActividad);
+        });
+    }
+
+    public void registrarActividad(Long usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        pendientes.compute(usuarioId, (id, actual) -> actual == null
+                ? new Actividad(null, null, ahora)
+                : new Actividad(actual.ultimoLogin(), actual.rachaActual(), ahora));
+    }
+
+    // Valores aún no escritos en BD (null si no hay nada pendiente)
+    public Actividad pendiente(Long usuarioId) {
+        return pendientes.get(usuarioId);
+    }
+
+    public LocalDateTime ultimaActividad(Usuario usuario) {
+        Actividad actividad = pendientes.get(usuario.getId());
+        return actividad != null && actividad.ultimaActividad() != null
+                ? actividad.ultimaActividad() : usuario.getUltimaActividad();
+    }
+
+    // ========== FLUSH ==========
+
+    @Scheduled(fixedDelayString = "${hooked.actividad.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pendientes.isEmpty()) return;
+
+        // Copia de lo que se va a escribir; lo que llegue mientras tanto queda para el siguiente
+        Map<Long, Actividad> lote = Map.copyOf(pendientes);
+
+        List<Object[]> filas = new ArrayList<>(lote.size());
+        lote.forEach((id, a) -> filas.add(new Object[]{
+                timestamp(a.ultimoLogin()), a.rachaActual(), timestamp(a.ultimaActividad()), id}));
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(SQL_APLICAR, filas));
+
+            // Solo se quitan las entradas que no cambiaron durante el flush
+            lote.forEach(pendientes::remove);
+        } catch (Exception e) {
+            logger.error("Error al aplicar actividad de {} usuarios; se reintenta en el próximo flush",
+                    lote.size(), e);
+        }
+    }
+
+    // Usuario eliminado: su fila ya no existe
+    public void descartar(Long usuarioId) {
+        pendientes.remove(usuarioId);
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        flush();
+    }
+
+    // ========== AUXILIARES ==========
+
+    static int calcularRacha(LocalDateTime ultimoLogin, int rachaActual, LocalDate hoy) {
+        if (ultimoLogin == null) {
+            // Primer login de su vida
+            return 1;
+        }
+
+        long diasDiferencia = ChronoUnit.DAYS.between(ultimoLogin.toLocalDate(), hoy);
+        if (diasDiferencia == 0) {
+            // Ya hizo login hoy, no cambia nada
+            return rachaActual;
+        }
+        if (diasDiferencia == 1) {
+            // Vino ayer, racha sube
+            return rachaActual + 1;
+        }
+        // Faltó más de un día, racha se rompe
+        return 1;
+    }
+
+    private static Timestamp timestamp(LocalDateTime fecha) {
+        return fecha != null ? Timestamp.valueOf(fecha) : null;
+    }
+
+    public record Actividad(LocalDateTime ultimoLogin, Integer rachaActual, LocalDateTime ultimaActividad) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.configuration.TransactionUtils;
+import com.flaco.hooked.domain.repository.CategoriaRepository;
+import com.flaco.hooked.domain.repository.ConteoPorId;
+import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.model.Categoria;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Snapshot inmutable de las categorías (id, nombre, descripción y total de posts).
+ * Las lecturas de categorías y la validación de categoría al escribir posts salen
+ * de aquí, sin consultar categorias ni cargar la colección posts.
+ *
+ * Cada cambio arma un mapa nuevo y lo publica con un solo set (copy-on-write):
+ * los lectores nunca ven un estado a medias. Los cambios se aplican tras el commit
+ * y el snapshot se recarga completo al arrancar y periódicamente.
+ */
+@Service
+public class CategoriaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoriaCache.class);
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private final AtomicReference<Map<Long, CategoriaInfo>> snapshot = new AtomicReference<>();
+
+    // ========== CARGA ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        recargar();
+    }
+
+    @Scheduled(initialDelayString = "${hooked.categorias.recargar-ms:600000}",
+            fixedDelayString = "${hooked.categorias.recargar-ms:600000}")
+    public void recargar() {
+        Map<Long, Long> totales = new HashMap<>();
+        for (ConteoPorId conteo : postRepository.contarPorCategoria()) {
+            totales.put(conteo.getId(), conteo.getTotal());
+        }
+
+        Map<Long, CategoriaInfo> nuevo = new TreeMap<>();
+        for (Categoria categoria : categoriaRepository.findAll()) {
+            long total = totales.getOrDefault(categoria.getId(), 0L);
+            nuevo.put(categoria.getId(), CategoriaInfo.de(categoria, (int) total));
+        }
+
+        snapshot.set(Collections.unmodifiableMap(nuevo));
+        logger.info("Snapshot de categorías: {} categorías", nuevo.size());
+    }
+
+    // ========== CONSULTAS ==========
+
+    // Todas, por id (mismo orden que findAll)
+    public List<CategoriaInfo> obtenerTodas() {
+        return List.copyOf(actual().values());
+    }
+
+    public Optional<CategoriaInfo> obtener(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(actual().get(id));
+    }
+
+    public boolean existe(Long id) {
+        return obtener(id).isPresent();
+    }
+
+    // ========== CAMBIOS (se aplican tras el commit) ==========
+
+    public void guardar(Categoria categoria) {
+        CategoriaInfo info = CategoriaInfo.de(categoria, 0);
+        TransactionUtils.despuesDelCommit(() -> modificar(mapa -> {
+            CategoriaInfo anterior = mapa.get(info.id());
+            mapa.put(info.id(), anterior != null ? info.conTotalPosts(anterior.totalPosts()) : info);
+            return mapa;
+        }));
+    }
+
+    public void eliminar(Long id) {
+        TransactionUtils.despuesDelCommit(() -> modificar(mapa -> {
+            mapa.remove(id);
+            return mapa;
+        }));
+    }
+
+    // Post creado (+1), borrado (-1) o movido de categoría
+    public void sumarPosts(Long categoriaId, int delta) {
+        if (categoriaId == null || delta == 0) return;
+
+        TransactionUtils.despuesDelCommit(() -> modificar(mapa -> {
+            CategoriaInfo info = mapa.get(categoriaId);
+            if (info != null) {
+                mapa.put(categoriaId, info.conTotalPosts(Math.max(0, info.totalPosts() + delta)));
+            }
+            return mapa;
+        }));
+    }
+
+    // ========== INTERNOS ==========
+
+    private Map<Long, CategoriaInfo> actual() {
+        Map<Long, CategoriaInfo> mapa = snapshot.get();
+        if (mapa == null) {
+            // Primera consulta antes de ApplicationReadyEvent
+            recargar();
+            mapa = snapshot.get();
+        }
+        return mapa;
+    }
+
+    // Copia, modifica y publica; reintenta si otro hilo publicó en medio
+    private void modificar(UnaryOperator<Map<Long, CategoriaInfo>> cambio) {
+        snapshot.updateAndGet(mapa -> mapa == null
+                ? null
+                : Collections.unmodifiableMap(cambio.apply(new TreeMap<>(mapa))));
+    }
+
+    public record CategoriaInfo(Long id, String nombre, String descripcion, int totalPosts) {
+
+        static CategoriaInfo de(Categoria categoria, int totalPosts) {
+            return new CategoriaInfo(categoria.getId(), categoria.getNombre(), categoria.getDescripcion(), totalPosts);
+        }
+
+        CategoriaInfo conTotalPosts(int total) {
+            return new CategoriaInfo(id, nombre, descripcion, total);
+        }
+    }
+}
@@ -2,19 +2,25 @@ package com.flaco.hooked.domain.service;
 
 import com.flaco.hooked.model.Categoria;
 import com.flaco.hooked.domain.repository.CategoriaRepository;
+import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.domain.service.CategoriaCache.CategoriaInfo;
 import com.flaco.hooked.domain.request.ActualizarCategoriaRequest;
 import com.flaco.hooked.domain.request.CrearCategoriaRequest;
 import com.flaco.hooked.domain.response.CategoriaResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import com.flaco.hooked.domain.response.PaginatedResponse;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +30,13 @@ public class CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private PostRepository postRepository;
+
+    // Lecturas desde el snapshot en memoria; las escrituras van a BD y lo actualizan tras el commit
+    @Autowired
+    private CategoriaCache categoriaCache;
+
     // Crear (CREATE)
     public CategoriaResponse crearCategoria(CrearCategoriaRequest request) {
         //Validación
@@ -36,13 +49,15 @@ public class CategoriaService {
         categoria.setDescripcion(request.getDescripcion());
 
         Categoria categoriaGuardada = categoriaRepository.save(categoria);
-        return convertirACategoriaResponse(categoriaGuardada);
+        categoriaCache.guardar(categoriaGuardada);
+        return new CategoriaResponse(categoriaGuardada.getId(), categoriaGuardada.getNombre(),
+                categoriaGuardada.getDescripcion(), 0);
     }
 
     //Obtener todas las categorias (READ)
     @Transactional(readOnly = true)
     public List<CategoriaResponse> obtenerTodasLasCategorias(){
-        return categoriaRepository.findAll()
+        return categoriaCache.obtenerTodas()
                 .stream()
                 .map(this::convertirACategoriaResponse)
                 .collect(Collectors.toList());
@@ -50,20 +65,33 @@ public class CategoriaService {
 
     //Paginación de categorías
     @Transactional(readOnly = true)
-    public PaginatedResponse<CategoriaResponse> obtenerCategoriasPaginadas(int pagina, int tamano) {
+    public PaginatedResponse<CategoriaResponse> obtenerCategoriasPaginadas(int pagina, int tamano, boolean conTotal) {
 
         // Límite de seguridad: 50
         tamano = Math.min(tamano, 50);
         Pageable pageable = PageRequest.of(pagina, tamano, Sort.by("nombre").ascending());
-        Page<Categoria> paginaResult = categoriaRepository.findAll(pageable);
-        Page<CategoriaResponse> paginaResponse = paginaResult.map(this::convertirACategoriaResponse);
+
+        // Son pocas: se ordena y se corta la página en memoria
+        List<CategoriaResponse> todas = categoriaCache.obtenerTodas()
+                .stream()
+                .sorted(Comparator.comparing(CategoriaInfo::nombre, String.CASE_INSENSITIVE_ORDER))
+                .map(this::convertirACategoriaResponse)
+                .collect(Collectors.toList());
+
+        int desde = (int) Math.min(pageable.getOffset(), todas.size());
+        int hasta = Math.min(desde + tamano, todas.size());
+        List<CategoriaResponse> contenido = todas.subList(desde, hasta);
+
+        Slice<CategoriaResponse> paginaResponse = conTotal
+                ? new PageImpl<>(contenido, pageable, todas.size())
+                : new SliceImpl<>(contenido, pageable, hasta < todas.size());
         return new PaginatedResponse<>(paginaResponse);
     }
 
     //Obtener categorias por Id (READ)
     @Transactional(readOnly = true)
     public CategoriaResponse obtenerCategoriaPorId(Long id){
-        Categoria categoria = categoriaRepository.findById(id)
+        CategoriaInfo categoria = categoriaCache.obtener(id)
                 .orElseThrow(() -> new RuntimeException("Categoria no encontrada con ID : " + id));
 
         return convertirACategoriaResponse(categoria);
@@ -90,7 +118,11 @@ public class CategoriaService {
         }
 
         Categoria categoriaActualizada = categoriaRepository.save(categoria);
-        return convertirACategoriaResponse(categoriaActualizada);
+        categoriaCache.guardar(categoriaActualizada);
+
+        int totalPosts = categoriaCache.obtener(id).map(CategoriaInfo::totalPosts).orElse(0);
+        return new CategoriaResponse(categoriaActualizada.getId(), categoriaActualizada.getNombre(),
+                categoriaActualizada.getDescripcion(), totalPosts);
     }
 
     //Eliminar categoría (DELETE)
@@ -98,13 +130,15 @@ public class CategoriaService {
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada con el ID : " + id));
 
-        //Verificar que no tenga post asociados
-        if(categoria.getPosts() != null && !categoria.getPosts().isEmpty()){
+        //Verificar que no tenga post asociados (contra BD, no contra el snapshot)
+        long totalPosts = postRepository.countByCategoriaId(id);
+        if(totalPosts > 0){
             throw new RuntimeException("No se puede eliminar la categoría porque tiene " +
-                    categoria.getPosts().size() + " posts asociados");
+                    totalPosts + " posts asociados");
         }
 
         categoriaRepository.delete(categoria);
+        categoriaCache.eliminar(id);
     }
 
     //Funcionalidades extra
@@ -112,14 +146,16 @@ public class CategoriaService {
     //Verificar si existe la categoría
     @Transactional(readOnly = true)
     public boolean existeCategoria(Long id){
-        return categoriaRepository.existsById(id);
+        return categoriaCache.existe(id);
     }
 
     //Buscar por nombre
     @Transactional(readOnly = true)
     public List<CategoriaResponse> buscarPorNombre(String nombre){
-        return categoriaRepository.findByNombreContainingIgnoreCase(nombre)
+        String buscado = nombre.toLowerCase(Locale.ROOT);
+        return categoriaCache.obtenerTodas()
                 .stream()
+                .filter(c -> c.nombre() != null && c.nombre().toLowerCase(Locale.ROOT).contains(buscado))
                 .map(this::convertirACategoriaResponse)
                 .collect(Collectors.toList());
     }
@@ -127,8 +163,9 @@ public class CategoriaService {
     //Traer las categorías que tengan posts
     @Transactional(readOnly = true)
     public List<CategoriaResponse> obtenerCategoriasConPosts(){
-        return categoriaRepository.findCategoriasWithPosts()
+        return categoriaCache.obtenerTodas()
                 .stream()
+                .filter(c -> c.totalPosts() > 0)
                 .map(this::convertirACategoriaResponse)
                 .collect(Collectors.toList());
     }
@@ -136,15 +173,15 @@ public class CategoriaService {
     //Cuenta la cantidad de categorías
     @Transactional(readOnly = true)
     public long contarCategorias(){
-        return categoriaRepository.count();
+        return categoriaCache.obtenerTodas().size();
     }
 
-    private CategoriaResponse convertirACategoriaResponse(Categoria categoria){
+    private CategoriaResponse convertirACategoriaResponse(CategoriaInfo categoria){
         CategoriaResponse response = new CategoriaResponse();
-        response.setId(categoria.getId());
-        response.setNombre(categoria.getNombre());
-        response.setDescripcion(categoria.getDescripcion());
-        response.setTotalPosts(categoria.getPosts() != null ? categoria.getPosts().size() : 0);
+        response.setId(categoria.id());
+        response.setNombre(categoria.nombre());
+        response.setDescripcion(categoria.descripcion());
+        response.setTotalPosts(categoria.totalPosts());
         return response;
     }
 }
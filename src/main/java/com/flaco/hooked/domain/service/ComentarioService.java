@@ -1,10 +1,13 @@
 package com.flaco.hooked.domain.service;
 
 import com.flaco.hooked.domain.repository.ComentarioRepository;
+import com.flaco.hooked.domain.repository.ConteoPorId;
 import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.domain.repository.UsuarioStatsRepository;
 import com.flaco.hooked.domain.request.ActualizarComentarioRequest;
 import com.flaco.hooked.domain.request.CrearComentarioRequest;
 import com.flaco.hooked.domain.response.ComentarioResponse;
+import com.flaco.hooked.domain.response.HiloComentariosResponse;
 import com.flaco.hooked.domain.response.PaginatedResponse;
 import com.flaco.hooked.model.Comentario;
 import com.flaco.hooked.model.Post;
@@ -13,10 +16,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +36,12 @@ public class ComentarioService {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private UsuarioStatsRepository usuarioStatsRepository;
+
+    @Autowired
+    private TendenciasService tendenciasService;
+
     // Crear comentario
     public ComentarioResponse crearComentario(CrearComentarioRequest request, Usuario usuario) {
         // Verificar que el post existe
@@ -46,16 +59,16 @@ public class ComentarioService {
         }
 
         comentario = comentarioRepository.save(comentario);
-        return new ComentarioResponse(comentario);
+        usuarioStatsRepository.sumarComentarios(usuario.getId(), 1);
+        tendenciasService.registrarComentarios(post.getId(), 1);
+        return new ComentarioResponse(comentario, 0);
     }
 
     // Obtener comentarios de un post
     @Transactional(readOnly = true)
     public List<ComentarioResponse> obtenerComentariosPorPost(Long postId) {
         List<Comentario> comentarios = comentarioRepository.findByPostIdOrderByFechaCreacion(postId);
-        return comentarios.stream()
-                .map(ComentarioResponse::new)
-                .collect(Collectors.toList());
+        return convertirAResponses(comentarios);
     }
 
     // Obtener comentario por ID
@@ -63,7 +76,7 @@ public class ComentarioService {
     public ComentarioResponse obtenerComentario(Long id) {
         Comentario comentario = comentarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Comentario no encontrado"));
-        return new ComentarioResponse(comentario);
+        return new ComentarioResponse(comentario, contarRespuestas(comentario.getId()));
     }
 
     // Actualizar comentario (solo el autor)
@@ -78,7 +91,7 @@ public class ComentarioService {
 
         comentario.setContenido(request.getContenido());
         comentario = comentarioRepository.save(comentario);
-        return new ComentarioResponse(comentario);
+        return new ComentarioResponse(comentario, contarRespuestas(comentario.getId()));
     }
 
     // Eliminar comentario (solo el autor)
@@ -91,16 +104,67 @@ public class ComentarioService {
             throw new RuntimeException("No tienes permisos para eliminar este comentario");
         }
 
+        // El borrado arrastra las respuestas (cascade): descontar a cada autor del hilo
+        Map<Long, Integer> comentariosPorAutor = new HashMap<>();
+        contarPorAutor(comentario, comentariosPorAutor);
+
+        Long postId = comentario.getPost().getId();
         comentarioRepository.delete(comentario);
+        comentariosPorAutor.forEach((autorId, total) -> usuarioStatsRepository.sumarComentarios(autorId, -total));
+        tendenciasService.registrarComentarios(postId,
+                -comentariosPorAutor.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    // Recorre el comentario y sus respuestas (las mismas que carga el cascade REMOVE)
+    private void contarPorAutor(Comentario comentario, Map<Long, Integer> acumulado) {
+        acumulado.merge(comentario.getUsuario().getId(), 1, Integer::sum);
+        for (Comentario respuesta : comentario.getRespuestas()) {
+            contarPorAutor(respuesta, acumulado);
+        }
+    }
+
+    // Obtener el hilo de un post: una sola consulta (hasta 'maximo' comentarios en
+    // orden de creación) y el árbol se arma en memoria en O(n)
+    @Transactional(readOnly = true)
+    public HiloComentariosResponse obtenerHiloPorPost(Long postId, int maximo) {
+        if (maximo > 1000) maximo = 1000;
+        if (maximo < 1) maximo = 1;
+
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post no encontrado");
+        }
+
+        Slice<Comentario> ventana = comentarioRepository.findHiloByPostId(postId, PageRequest.of(0, maximo));
+
+        Map<Long, HiloComentariosResponse.NodoComentario> nodos = new HashMap<>();
+        List<HiloComentariosResponse.NodoComentario> principales = new ArrayList<>();
+
+        for (Comentario comentario : ventana) {
+            HiloComentariosResponse.NodoComentario nodo = new HiloComentariosResponse.NodoComentario(comentario);
+            nodos.put(nodo.getId(), nodo);
+
+            // Los padres ya pasaron (orden de creación); si no está, se muestra como principal
+            HiloComentariosResponse.NodoComentario padre = nodo.getComentarioPadreId() != null
+                    ? nodos.get(nodo.getComentarioPadreId())
+                    : null;
+            if (padre != null) {
+                padre.getRespuestas().add(nodo);
+            } else {
+                principales.add(nodo);
+            }
+        }
+
+        // Con hayMas, el total cuenta solo las respuestas que entraron en la ventana
+        nodos.values().forEach(nodo -> nodo.setTotalRespuestas(nodo.getRespuestas().size()));
+
+        return new HiloComentariosResponse(postId, principales, nodos.size(), ventana.hasNext());
     }
 
     // Obtener comentarios de un usuario
     @Transactional(readOnly = true)
     public List<ComentarioResponse> obtenerComentariosPorUsuario(Long usuarioId) {
         List<Comentario> comentarios = comentarioRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId);
-        return comentarios.stream()
-                .map(ComentarioResponse::new)
-                .collect(Collectors.toList());
+        return convertirAResponses(comentarios);
     }
 
     // Contar comentarios de un post
@@ -111,7 +175,7 @@ public class ComentarioService {
 
     // Obtener comentarios de un post - PAGINADO
     @Transactional(readOnly = true)
-    public PaginatedResponse<ComentarioResponse> obtenerComentariosPorPostPaginados(Long postId, int pagina, int tamano) {
+    public PaginatedResponse<ComentarioResponse> obtenerComentariosPorPostPaginados(Long postId, int pagina, int tamano, boolean conTotal) {
         // Validar parámetros
         if (tamano > 100) tamano = 100; // Límite mayor para comentarios
         if (pagina < 0) pagina = 0;
@@ -122,15 +186,17 @@ public class ComentarioService {
         }
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Comentario> comentarioPage = comentarioRepository.findByPostIdOrderByFechaCreacionPaginado(postId, pageable);
-        Page<ComentarioResponse> comentarioResponsePage = comentarioPage.map(ComentarioResponse::new);
+        Slice<Comentario> comentarioPage = conTotal
+                ? comentarioRepository.findByPostIdOrderByFechaCreacionPaginado(postId, pageable)
+                : comentarioRepository.findSliceByPostIdOrderByFechaCreacion(postId, pageable);
+        Slice<ComentarioResponse> comentarioResponsePage = convertirAResponses(comentarioPage);
 
         return new PaginatedResponse<>(comentarioResponsePage);
     }
 
     // Obtener solo comentarios principales (sin respuestas) - PAGINADO
     @Transactional(readOnly = true)
-    public PaginatedResponse<ComentarioResponse> obtenerComentariosPrincipalesPorPostPaginados(Long postId, int pagina, int tamano) {
+    public PaginatedResponse<ComentarioResponse> obtenerComentariosPrincipalesPorPostPaginados(Long postId, int pagina, int tamano, boolean conTotal) {
         if (tamano > 100) tamano = 100;
         if (pagina < 0) pagina = 0;
 
@@ -140,21 +206,25 @@ public class ComentarioService {
         }
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Comentario> comentarioPage = comentarioRepository.findComentariosPrincipalesByPostId(postId, pageable);
-        Page<ComentarioResponse> comentarioResponsePage = comentarioPage.map(ComentarioResponse::new);
+        Slice<Comentario> comentarioPage = conTotal
+                ? comentarioRepository.findComentariosPrincipalesByPostId(postId, pageable)
+                : comentarioRepository.findSliceComentariosPrincipalesByPostId(postId, pageable);
+        Slice<ComentarioResponse> comentarioResponsePage = convertirAResponses(comentarioPage);
 
         return new PaginatedResponse<>(comentarioResponsePage);
     }
 
     // Obtener comentarios de un usuario - PAGINADO
     @Transactional(readOnly = true)
-    public PaginatedResponse<ComentarioResponse> obtenerComentariosPorUsuarioPaginados(Long usuarioId, int pagina, int tamano) {
+    public PaginatedResponse<ComentarioResponse> obtenerComentariosPorUsuarioPaginados(Long usuarioId, int pagina, int tamano, boolean conTotal) {
         if (tamano > 100) tamano = 100;
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Comentario> comentarioPage = comentarioRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable);
-        Page<ComentarioResponse> comentarioResponsePage = comentarioPage.map(ComentarioResponse::new);
+        Slice<Comentario> comentarioPage = conTotal
+                ? comentarioRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable)
+                : comentarioRepository.findSliceByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable);
+        Slice<ComentarioResponse> comentarioResponsePage = convertirAResponses(comentarioPage);
 
         return new PaginatedResponse<>(comentarioResponsePage);
     }
@@ -172,21 +242,52 @@ public class ComentarioService {
 
         Pageable pageable = PageRequest.of(pagina, tamano);
         Page<Comentario> respuestaPage = comentarioRepository.findByComentarioPadreIdOrderByFechaCreacion(comentarioPadreId, pageable);
-        Page<ComentarioResponse> respuestaResponsePage = respuestaPage.map(ComentarioResponse::new);
+        Slice<ComentarioResponse> respuestaResponsePage = convertirAResponses(respuestaPage);
 
         return new PaginatedResponse<>(respuestaResponsePage);
     }
 
     // Obtener comentarios recientes de un usuario (para perfil) - PAGINADO
     @Transactional(readOnly = true)
-    public PaginatedResponse<ComentarioResponse> obtenerComentariosRecientesPorUsuarioPaginados(Long usuarioId, int pagina, int tamano) {
+    public PaginatedResponse<ComentarioResponse> obtenerComentariosRecientesPorUsuarioPaginados(Long usuarioId, int pagina, int tamano, boolean conTotal) {
         if (tamano > 50) tamano = 50; // Límite para vistas de perfil
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Comentario> comentarioPage = comentarioRepository.findComentariosRecientesByUsuarioId(usuarioId, pageable);
-        Page<ComentarioResponse> comentarioResponsePage = comentarioPage.map(ComentarioResponse::new);
+        Slice<Comentario> comentarioPage = conTotal
+                ? comentarioRepository.findComentariosRecientesByUsuarioId(usuarioId, pageable)
+                : comentarioRepository.findSliceComentariosRecientesByUsuarioId(usuarioId, pageable);
+        Slice<ComentarioResponse> comentarioResponsePage = convertirAResponses(comentarioPage);
 
         return new PaginatedResponse<>(comentarioResponsePage);
     }
-}
\ No newline at end of file
+
+    // ========== CONVERSIÓN (totalRespuestas con un conteo agrupado) ==========
+
+    private Slice<ComentarioResponse> convertirAResponses(Slice<Comentario> pagina) {
+        Map<Long, Long> respuestas = contarRespuestas(pagina.getContent());
+        return pagina.map(c -> new ComentarioResponse(c, respuestas.getOrDefault(c.getId(), 0L).intValue()));
+    }
+
+    private List<ComentarioResponse> convertirAResponses(List<Comentario> comentarios) {
+        Map<Long, Long> respuestas = contarRespuestas(comentarios);
+        return comentarios.stream()
+                .map(c -> new ComentarioResponse(c, respuestas.getOrDefault(c.getId(), 0L).intValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Long> contarRespuestas(List<Comentario> comentarios) {
+        if (comentarios.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> comentarioIds = comentarios.stream()
+                .map(Comentario::getId)
+                .collect(Collectors.toList());
+        return comentarioRepository.contarRespuestasPorComentarioIds(comentarioIds).stream()
+                .collect(Collectors.toMap(ConteoPorId::getId, ConteoPorId::getTotal));
+    }
+
+    private int contarRespuestas(Long comentarioId) {
+        return (int) comentarioRepository.countRespuestasByComentarioId(comentarioId);
+    }
+}
@@ -5,15 +5,23 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.flaco.hooked.infrastructure.security.TokenVerificadoCache;
+import com.flaco.hooked.infrastructure.security.UsuarioPrincipal;
 import com.flaco.hooked.model.Usuario;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.List;
 
 @Service
 public class JwtService {
@@ -28,16 +36,34 @@ public class JwtService {
 
     private static final String ISSUER = "hooked-api";
     private static final ZoneOffset ZONE_OFFSET = ZoneOffset.of("-06:00"); // CDMX (ajusta a tu zona)
+    private static final String CLAIM_ROLES = "roles";
+    private static final List<String> ROLES_POR_DEFECTO = List.of("ROLE_USER");
+
+    @Autowired
+    private TokenVerificadoCache tokenCache;
+
+    // Thread-safe: se arman una vez en lugar de en cada token
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+
+    @PostConstruct
+    void inicializar() {
+        algorithm = Algorithm.HMAC256(secretKey);
+        verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+    }
 
     public String generarToken(Usuario usuario) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secretKey);
-
             return JWT.create()
                     .withIssuer(ISSUER)
                     .withSubject(usuario.getEmail())
                     .withClaim("userId", usuario.getId())
                     .withClaim("nombre", usuario.getNombre())
+                    .withClaim(CLAIM_ROLES, usuario.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .toList())
                     .withIssuedAt(Instant.now())
                     .withExpiresAt(generarFechaExpiracion())
                     .sign(algorithm);
@@ -53,15 +79,23 @@ public class JwtService {
      * @return email si válido, null si inválido (no lanza excepción)
      */
     public String validarToken(String token) {
-        try {
-            Algorithm algorithm = Algorithm.HMAC256(secretKey);
+        DecodedJWT decodedJWT = verificarToken(token);
+        return decodedJWT != null ? decodedJWT.getSubject() : null;
+    }
 
-            DecodedJWT decodedJWT = JWT.require(algorithm)
-                    .withIssuer(ISSUER)
-                    .build()
-                    .verify(token);
+    /**
+     * Verifica firma, emisor, expiración y que el usuario no haya hecho logout-all después.
+     * @return el token decodificado, null si es inválido (no lanza excepción)
+     */
+    public DecodedJWT verificarToken(String token) {
+        try {
+            DecodedJWT decodedJWT = verifier.verify(token);
 
-            return decodedJWT.getSubject();
+            if (tokenCache.estaRevocado(decodedJWT.getClaim("userId").asLong(), decodedJWT.getIssuedAtAsInstant())) {
+                logger.warn("Token revocado para: {}", decodedJWT.getSubject());
+                return null;
+            }
+            return decodedJWT;
 
         } catch (JWTVerificationException e) {
             logger.warn("Token inválido o expirado: {}", e.getMessage());
@@ -69,6 +103,46 @@ public class JwtService {
         }
     }
 
+    /**
+     * Principal de un token ya verificado antes (cache por SHA-256 del token).
+     * @return null si no está en cache: hay que pasar por verificarToken
+     */
+    public UsuarioPrincipal obtenerPrincipalCacheado(String token) {
+        return tokenCache.obtener(token);
+    }
+
+    /**
+     * Arma el principal con los claims de un token ya verificado, sin consultar la BD,
+     * y lo guarda en cache hasta el "exp" del token.
+     * @return null si el token no trae userId (emitido antes de este claim)
+     */
+    public UsuarioPrincipal obtenerPrincipal(DecodedJWT decodedJWT) {
+        Long userId = decodedJWT.getClaim("userId").asLong();
+        if (userId == null) {
+            return null;
+        }
+
+        List<String> roles = decodedJWT.getClaim(CLAIM_ROLES).asList(String.class);
+
+        UsuarioPrincipal principal = new UsuarioPrincipal(
+                userId,
+                decodedJWT.getSubject(),
+                decodedJWT.getClaim("nombre").asString(),
+                roles != null && !roles.isEmpty() ? roles : ROLES_POR_DEFECTO);
+
+        tokenCache.guardar(decodedJWT.getToken(), principal,
+                decodedJWT.getIssuedAtAsInstant(), decodedJWT.getExpiresAtAsInstant());
+        return principal;
+    }
+
+    /**
+     * Invalida los access tokens vigentes del usuario (logout-all); las demás
+     * instancias lo ven en la siguiente sincronización de TokenVerificadoCache.
+     */
+    public void revocarTokensDelUsuario(Long usuarioId) {
+        tokenCache.revocarUsuario(usuarioId);
+    }
+
     /**
      * Extrae claims sin validar (útil si ya validaste antes).
      */
@@ -0,0 +1,125 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.configuration.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de likes write-behind: cada like/unlike suma un delta en memoria y un
+ * flush periódico aplica todos los deltas a posts.like_count en un solo batch.
+ * Así el endpoint de like no compite por el lock de la fila del post.
+ */
+@Service
+public class LikeCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterService.class);
+
+    private static final String SQL_APLICAR_DELTA =
+            "UPDATE posts SET like_count = GREATEST(COALESCE(like_count, 0) + ?, 0) WHERE id = ?";
+
+    // Mismo delta a los likes recibidos del autor (usuario_stats), creando la fila si falta
+    private static final String SQL_APLICAR_DELTA_AUTOR =
+            "INSERT INTO usuario_stats (usuario_id, total_likes_recibidos) " +
+            "SELECT p.usuario_id, GREATEST(?, 0) FROM posts p WHERE p.id = ? " +
+            "ON DUPLICATE KEY UPDATE total_likes_recibidos = GREATEST(total_likes_recibidos + ?, 0)";
+
+    // Deltas pendientes por post. Un LongAdder reparte los likes concurrentes de un
+    // post caliente en celdas (sin el lock de la entrada que tomaría merge()) y el
+    // flush lo drena con sumThenReset(), que reclama cada incremento una sola vez.
+    // La entrada se conserva mientras el post reciba likes y se quita cuando un flush
+    // la encuentra sin delta (inactiva durante un intervalo entero).
+    private final ConcurrentHashMap<Long, LongAdder> pendientes = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Registra el delta cuando la transacción del like confirma
+    public void registrar(Long postId, long delta) {
+        if (delta == 0) return;
+        TransactionUtils.despuesDelCommit(() -> sumar(postId, delta));
+    }
+
+    // Delta aún no aplicado en BD (para mezclarlo en las lecturas)
+    public long pendiente(Long postId) {
+        LongAdder acumulado = pendientes.get(postId);
+        return acumulado != null ? acumulado.sum() : 0L;
+    }
+
+    // Post eliminado: sus deltas ya no tienen fila a la que aplicarse
+    public void descartar(Long postId) {
+        TransactionUtils.despuesDelCommit(() -> pendientes.remove(postId));
+    }
+
+    @Scheduled(fixedDelayString = "${hooked.likes.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        List<Object[]> lote = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entrada : pendientes.entrySet()) {
+            LongAdder acumulado = entrada.getValue();
+            long delta = acumulado.sumThenReset();
+            if (delta == 0 && pendientes.remove(entrada.getKey(), acumulado)) {
+                // Lo que se sumó entre el reset y el remove se reclama aquí; lo posterior
+                // lo reenvía sumar() al ver que su acumulador ya no está en el mapa
+                delta = acumulado.sumThenReset();
+            }
+            if (delta != 0) {
+                lote.add(new Object[]{delta, entrada.getKey()});
+            }
+        }
+
+        if (lote.isEmpty()) return;
+
+        List<Object[]> loteAutores = lote.stream()
+                .map(fila -> new Object[]{fila[0], fila[1], fila[0]})
+                .toList();
+
+        try {
+            // posts.like_count y usuario_stats en la misma transacción
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(SQL_APLICAR_DELTA, lote);
+                jdbcTemplate.batchUpdate(SQL_APLICAR_DELTA_AUTOR, loteAutores);
+            });
+            logger.debug("Flush de likes: {} posts actualizados", lote.size());
+        } catch (Exception e) {
+            // Devolver los deltas para reintentarlos en el siguiente flush
+            logger.error("Error aplicando deltas de likes ({} posts), se reintentará", lote.size(), e);
+            lote.forEach(fila -> sumar((Long) fila[1], (Long) fila[0]));
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        flush();
+    }
+
+    private void sumar(Long postId, long delta) {
+        LongAdder acumulado = pendientes.get(postId);
+        if (acumulado == null) {
+            acumulado = pendientes.computeIfAbsent(postId, id -> new LongAdder());
+        }
+        acumulado.add(delta);
+
+        // El flush (o descartar) quitó la entrada mientras tanto: lo que quede sin
+        // reclamar en el acumulador huérfano pasa a la entrada nueva
+        if (pendientes.get(postId) != acumulado) {
+            long huerfano = acumulado.sumThenReset();
+            if (huerfano != 0) {
+                sumar(postId, huerfano);
+            }
+        }
+    }
+}
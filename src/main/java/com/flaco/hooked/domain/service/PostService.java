@@ -1,26 +1,47 @@
 package com.flaco.hooked.domain.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flaco.hooked.configuration.CursorUtils;
 import com.flaco.hooked.model.Categoria;
 import com.flaco.hooked.domain.repository.CategoriaRepository;
-import com.flaco.hooked.model.Like;
+import com.flaco.hooked.domain.repository.ComentarioRepository;
+import com.flaco.hooked.domain.repository.ConteoPorId;
 import com.flaco.hooked.domain.repository.LikeRepository;
 import com.flaco.hooked.model.Post;
 import com.flaco.hooked.domain.repository.PostRepository;
 import com.flaco.hooked.domain.request.ActualizarPostRequest;
 import com.flaco.hooked.domain.request.CrearPostRequest;
+import com.flaco.hooked.domain.response.CursorPaginatedResponse;
 import com.flaco.hooked.domain.response.PostResponse;
 import com.flaco.hooked.domain.response.PaginatedResponse;
 import com.flaco.hooked.model.Usuario;
 import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.domain.repository.UsuarioStatsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -38,15 +59,45 @@ public class PostService {
     @Autowired
     private LikeRepository likeRepository;
 
+    @Autowired
+    private ComentarioRepository comentarioRepository;
+
+    // innodb_ft_min_token_size por defecto: palabras más cortas no entran al índice
+    private static final int LONGITUD_MINIMA_FULLTEXT = 3;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Autowired
+    private UsuarioStatsRepository usuarioStatsRepository;
+
+    @Autowired
+    private CategoriaCache categoriaCache;
+
+    @Autowired
+    private TendenciasService tendenciasService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Posts por lote en las exportaciones: mismo valor que el fetch size de los Stream del repositorio
+    private static final int LOTE_EXPORTACION = PostRepository.FETCH_SIZE_EXPORTACION;
+
     // ========== CRUD BÁSICO ==========
 
     // Crear post
-    public PostResponse crearPost(CrearPostRequest request, String emailUsuario) {
-        Usuario autor = usuarioRepository.findByEmail(emailUsuario)
+    public PostResponse crearPost(CrearPostRequest request, Long usuarioId) {
+        Usuario autor = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        Categoria categoria = categoriaRepository.findById(request.getCategoriaId())
-                .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
+        // Se valida contra el snapshot; la referencia solo aporta la FK
+        if (!categoriaCache.existe(request.getCategoriaId())) {
+            throw new RuntimeException("Categoría no encontrada");
+        }
+        Categoria categoria = categoriaRepository.getReferenceById(request.getCategoriaId());
 
         Post post = new Post();
         post.setTitulo(request.getTitulo());
@@ -57,17 +108,12 @@ public class PostService {
         post.setLikeCount(0);
 
         Post postGuardado = postRepository.save(post);
+        usuarioStatsRepository.sumarPosts(autor.getId(), 1);
+        categoriaCache.sumarPosts(categoria.getId(), 1);
+        tendenciasService.registrarPost(postGuardado.getId());
         return convertirAResponse(postGuardado, autor.getId());
     }
 
-    // Obtener todos los posts
-    public List<PostResponse> obtenerTodosPosts() {
-        return postRepository.findAllByOrderByFechaCreacionDesc()
-                .stream()
-                .map(post -> convertirAResponse(post, null))
-                .collect(Collectors.toList());
-    }
-
     // Obtener post por ID
     public PostResponse obtenerPostPorId(Long id, Long usuarioId) {
         Post post = postRepository.findById(id)
@@ -77,37 +123,21 @@ public class PostService {
 
     // Obtener posts por usuario ID
     public List<PostResponse> obtenerPostsPorUsuario(Long usuarioId) {
-        return postRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId)
-                .stream()
-                .map(post -> convertirAResponse(post, null))
-                .collect(Collectors.toList());
+        return convertirListaAResponse(postRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId), null);
     }
 
     // Obtener posts por categoría
     public List<PostResponse> obtenerPostsPorCategoria(Long categoriaId) {
-        return postRepository.findByCategoriaIdOrderByFechaCreacionDesc(categoriaId)
-                .stream()
-                .map(post -> convertirAResponse(post, null))
-                .collect(Collectors.toList());
-    }
-
-    // Obtener posts por email del usuario
-    public List<PostResponse> obtenerPostsPorUsuario(String emailUsuario) {
-        Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-        return postRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuario.getId())
-                .stream()
-                .map(post -> convertirAResponse(post, usuario.getId()))
-                .collect(Collectors.toList());
+        return convertirListaAResponse(postRepository.findByCategoriaIdOrderByFechaCreacionDesc(categoriaId), null);
     }
 
     // Actualizar post
-    public PostResponse actualizarPost(Long id, ActualizarPostRequest request, String emailUsuario) {
+    public PostResponse actualizarPost(Long id, ActualizarPostRequest request, Long usuarioId) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post no encontrado"));
 
-        if (!post.getUsuario().getEmail().equals(emailUsuario)) {
+        // Compara ids: el id del autor es la FK del post, no hace falta cargarlo
+        if (!post.getUsuario().getId().equals(usuarioId)) {
             throw new RuntimeException("No tienes permisos para editar este post");
         }
 
@@ -121,93 +151,77 @@ public class PostService {
             post.setFotoLink(request.getFotoLink());
         }
         if (request.getCategoriaId() != null) {
-            Categoria categoria = categoriaRepository.findById(request.getCategoriaId())
-                    .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
-            post.setCategoria(categoria);
+            if (!categoriaCache.existe(request.getCategoriaId())) {
+                throw new RuntimeException("Categoría no encontrada");
+            }
+            Long categoriaAnterior = post.getCategoria().getId();
+            if (!categoriaAnterior.equals(request.getCategoriaId())) {
+                post.setCategoria(categoriaRepository.getReferenceById(request.getCategoriaId()));
+                categoriaCache.sumarPosts(categoriaAnterior, -1);
+                categoriaCache.sumarPosts(request.getCategoriaId(), 1);
+            }
         }
 
         Post postActualizado = postRepository.save(post);
-        Usuario usuario = usuarioRepository.findByEmail(emailUsuario).orElse(null);
-        return convertirAResponse(postActualizado, usuario != null ? usuario.getId() : null);
+        return convertirAResponse(postActualizado, usuarioId);
     }
 
     // Eliminar post
-    public void eliminarPost(Long id, String emailUsuario) {
-        Post post = postRepository.findById(id)
+    public void eliminarPost(Long id, Long usuarioId) {
+        // Fila bloqueada hasta el commit: un flush de likes concurrente no puede cambiar
+        // like_count entre esta lectura y el borrado (toma los locks en el mismo orden:
+        // posts y luego usuario_stats)
+        Post post = postRepository.findParaEliminarById(id)
                 .orElseThrow(() -> new RuntimeException("Post no encontrado"));
 
-        if (!post.getUsuario().getEmail().equals(emailUsuario)) {
+        if (!post.getUsuario().getId().equals(usuarioId)) {
             throw new RuntimeException("No tienes permisos para eliminar este post");
         }
 
+        // Contadores de usuario_stats que desaparecen con el post. Los deltas de likes
+        // aún pendientes nunca llegaron a usuario_stats: se descartan sin restar, y un
+        // lote que ya los drenó aplica 0 filas porque el post ya no existe
+        Long autorId = post.getUsuario().getId();
+        Long categoriaId = post.getCategoria().getId();
+        long likesPersistidos = post.getLikeCount() != null ? post.getLikeCount() : 0;
+        List<ConteoPorId> comentariosPorAutor = comentarioRepository.contarPorAutorEnPost(id);
+
         // Eliminar likes asociados primero
         likeRepository.deleteByPostId(id);
 
         postRepository.delete(post);
+        likeCounterService.descartar(id);
+        tendenciasService.descartar(id);
+
+        usuarioStatsRepository.sumarPosts(autorId, -1);
+        categoriaCache.sumarPosts(categoriaId, -1);
+        usuarioStatsRepository.sumarLikesRecibidos(autorId, -likesPersistidos);
+        comentariosPorAutor.forEach(conteo ->
+                usuarioStatsRepository.sumarComentarios(conteo.getId(), -conteo.getTotal().intValue()));
     }
 
     // ========== LIKES CON TOGGLE CORREGIDO ==========
 
     /**
-     * CORREGIDO: Toggle like con sincronización forzada a BD
+     * Toggle atómico: INSERT IGNORE sobre la UNIQUE (usuario_id, post_id) decide si
+     * se dio o se quitó el like. El ±1 de like_count va al contador write-behind
+     * (LikeCounterService), así que el click no toca la fila del post.
      */
     public PostResponse toggleLike(Long postId, Long usuarioId, String emailUsuario) {
-        Post post = postRepository.findById(postId)
+        Post post = postRepository.findConAutorYCategoriaById(postId)
                 .orElseThrow(() -> new RuntimeException("Post no encontrado"));
 
-        // Si no tenemos el ID, buscar por email (fallback)
-        Long userIdToUse = usuarioId;
-        if (userIdToUse == null && emailUsuario != null) {
-            Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            userIdToUse = usuario.getId();
-        }
-
-        if (userIdToUse == null) {
-            throw new RuntimeException("No se pudo identificar al usuario");
-        }
-
-        // ✅ CORREGIDO: Forzar sincronización antes de verificar
-        likeRepository.flush();
+        Long userIdToUse = resolverUsuarioId(usuarioId, emailUsuario);
 
-        boolean yaDioLike = likeRepository.existsByUsuarioIdAndPostId(userIdToUse, postId);
-        System.out.println("DEBUG - toggleLike inicial: usuario=" + userIdToUse + " post=" + postId + " yaDioLike=" + yaDioLike);
-
-        if (yaDioLike) {
-            // Quitar like
-            likeRepository.deleteByUsuarioIdAndPostId(userIdToUse, postId);
-            System.out.println("DEBUG - Like eliminado para usuario: " + userIdToUse + " post: " + postId);
+        int delta;
+        if (likeRepository.insertarSiNoExiste(userIdToUse, postId) > 0) {
+            delta = 1;
         } else {
-            // Dar like
-            Like like = new Like();
-            Usuario usuarioRef = usuarioRepository.findById(userIdToUse)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            like.setUsuario(usuarioRef);
-            like.setPost(post);
-            likeRepository.save(like);
-            System.out.println("DEBUG - Like creado para usuario: " + userIdToUse + " post: " + postId);
+            // Ya existía: quitarlo (0 filas si otra petición lo quitó primero)
+            delta = -likeRepository.eliminarLike(userIdToUse, postId);
         }
 
-        // ✅ CORREGIDO: Forzar flush y limpiar caché de Hibernate
-        likeRepository.flush();
-
-        // Recalcular contador desde la base de datos
-        Long totalLikes = likeRepository.countByPostId(postId);
-        post.setLikeCount(totalLikes.intValue());
-        postRepository.save(post);
-        postRepository.flush();
-
-        System.out.println("DEBUG - Total likes después de toggle: " + totalLikes);
-
-        // ✅ CORREGIDO: Recargar post completamente desde BD (no usar caché)
-        Post postActualizado = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post no encontrado"));
-
-        // Verificar estado final
-        boolean likeActual = likeRepository.existsByUsuarioIdAndPostId(userIdToUse, postId);
-        System.out.println("DEBUG - Estado final del like: " + likeActual);
-
-        return convertirAResponse(postActualizado, userIdToUse);
+        return construirRespuestaLike(post, delta, delta > 0);
     }
 
     /**
@@ -223,37 +237,17 @@ public class PostService {
     }
 
     /**
-     * CORREGIDO: Quitar like con sincronización forzada
+     * Quitar like: DELETE directo; el contador solo se ajusta si se borró algo.
      */
     public PostResponse quitarLike(Long postId, Long usuarioId, String emailUsuario) {
-        // Si no tenemos el ID, buscar por email (fallback)
-        Long userIdToUse = usuarioId;
-        if (userIdToUse == null && emailUsuario != null) {
-            Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            userIdToUse = usuario.getId();
-        }
-
-        if (userIdToUse == null) {
-            throw new RuntimeException("No se pudo identificar al usuario");
-        }
-
-        // ✅ CORREGIDO: Usar delete directo con flush
-        likeRepository.deleteByUsuarioIdAndPostId(userIdToUse, postId);
-        likeRepository.flush();
+        Long userIdToUse = resolverUsuarioId(usuarioId, emailUsuario);
 
-        Post post = postRepository.findById(postId)
+        Post post = postRepository.findConAutorYCategoriaById(postId)
                 .orElseThrow(() -> new RuntimeException("Post no encontrado"));
 
-        Long totalLikes = likeRepository.countByPostId(postId);
-        post.setLikeCount(totalLikes.intValue());
-        postRepository.save(post);
-        postRepository.flush();
-
-        // Recargar post desde BD
-        Post postActualizado = postRepository.findById(postId).orElse(post);
+        int delta = -likeRepository.eliminarLike(userIdToUse, postId);
 
-        return convertirAResponse(postActualizado, userIdToUse);
+        return construirRespuestaLike(post, delta, false);
     }
 
     /**
@@ -268,15 +262,17 @@ public class PostService {
     /**
      * CORREGIDO: Ahora recibe Long usuarioId en lugar de String emailUsuario
      */
-    public PaginatedResponse<PostResponse> obtenerTodosPostsPaginados(int pagina, int tamano, Long usuarioId) {
+    public PaginatedResponse<PostResponse> obtenerTodosPostsPaginados(int pagina, int tamano, Long usuarioId, boolean conTotal) {
         if (tamano > 50) tamano = 50;
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Post> postPage = postRepository.findAllByOrderByFechaCreacionDesc(pageable);
+        Slice<Post> postPage = conTotal
+                ? postRepository.findAllByOrderByFechaCreacionDesc(pageable)
+                : postRepository.findSliceByOrderByFechaCreacionDesc(pageable);
 
         // CORREGIDO: Usar usuarioId directamente, sin buscar en BD
-        Page<PostResponse> postResponsePage = postPage.map(post -> convertirAResponse(post, usuarioId));
+        Slice<PostResponse> postResponsePage = convertirPaginaAResponse(postPage, usuarioId);
 
         return new PaginatedResponse<>(postResponsePage);
     }
@@ -284,15 +280,17 @@ public class PostService {
     /**
      * CORREGIDO: Ahora recibe Long usuarioId en lugar de String emailUsuario
      */
-    public PaginatedResponse<PostResponse> obtenerPostsPorCategoriaPaginados(Long categoriaId, int pagina, int tamano, Long usuarioId) {
+    public PaginatedResponse<PostResponse> obtenerPostsPorCategoriaPaginados(Long categoriaId, int pagina, int tamano, Long usuarioId, boolean conTotal) {
         if (tamano > 50) tamano = 50;
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Post> postPage = postRepository.findByCategoriaIdOrderByFechaCreacionDesc(categoriaId, pageable);
+        Slice<Post> postPage = conTotal
+                ? postRepository.findByCategoriaIdOrderByFechaCreacionDesc(categoriaId, pageable)
+                : postRepository.findSliceByCategoriaIdOrderByFechaCreacionDesc(categoriaId, pageable);
 
         // CORREGIDO: Usar usuarioId directamente
-        Page<PostResponse> postResponsePage = postPage.map(post -> convertirAResponse(post, usuarioId));
+        Slice<PostResponse> postResponsePage = convertirPaginaAResponse(postPage, usuarioId);
 
         return new PaginatedResponse<>(postResponsePage);
     }
@@ -300,31 +298,50 @@ public class PostService {
     /**
      * CORREGIDO: Ahora recibe Long usuarioActualId en lugar de String emailUsuarioActual
      */
-    public PaginatedResponse<PostResponse> obtenerPostsPorUsuarioPaginados(Long usuarioId, int pagina, int tamano, Long usuarioActualId) {
+    public PaginatedResponse<PostResponse> obtenerPostsPorUsuarioPaginados(Long usuarioId, int pagina, int tamano, Long usuarioActualId, boolean conTotal) {
         if (tamano > 50) tamano = 50;
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Post> postPage = postRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable);
+        Slice<Post> postPage = conTotal
+                ? postRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable)
+                : postRepository.findSliceByUsuarioIdOrderByFechaCreacionDesc(usuarioId, pageable);
 
         // CORREGIDO: Usar usuarioActualId directamente, sin buscar en BD
-        Page<PostResponse> postResponsePage = postPage.map(post -> convertirAResponse(post, usuarioActualId));
+        Slice<PostResponse> postResponsePage = convertirPaginaAResponse(postPage, usuarioActualId);
 
         return new PaginatedResponse<>(postResponsePage);
     }
 
     /**
-     * CORREGIDO: Ahora recibe Long usuarioId en lugar de String emailUsuario
+     * Búsqueda por relevancia con el índice FULLTEXT (MATCH ... AGAINST): primero la
+     * página de ids ordenada por relevancia, luego los posts con autor y categoría.
+     * Términos más cortos que el token mínimo de MySQL siguen usando LIKE.
      */
-    public PaginatedResponse<PostResponse> buscarPostsPaginados(String busqueda, int pagina, int tamano, Long usuarioId) {
+    public PaginatedResponse<PostResponse> buscarPostsPaginados(String busqueda, int pagina, int tamano, Long usuarioId, boolean conTotal) {
         if (tamano > 50) tamano = 50;
         if (pagina < 0) pagina = 0;
 
+        String termino = busqueda.trim();
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Post> postPage = postRepository.buscarPostsPaginados(busqueda, pageable);
+        Slice<Post> postPage;
 
-        // CORREGIDO: Usar usuarioId directamente
-        Page<PostResponse> postResponsePage = postPage.map(post -> convertirAResponse(post, usuarioId));
+        if (termino.length() < LONGITUD_MINIMA_FULLTEXT) {
+            postPage = conTotal
+                    ? postRepository.buscarPostsPaginados(termino, pageable)
+                    : postRepository.buscarPostsSinTotal(termino, pageable);
+        } else {
+            Slice<Long> ids = conTotal
+                    ? postRepository.buscarIdsPorRelevancia(termino, pageable)
+                    : postRepository.buscarIdsPorRelevanciaSinTotal(termino, pageable);
+            List<Post> posts = cargarEnOrden(ids.getContent());
+
+            postPage = ids instanceof Page<Long> paginaIds
+                    ? new PageImpl<>(posts, pageable, paginaIds.getTotalElements())
+                    : new SliceImpl<>(posts, pageable, ids.hasNext());
+        }
+
+        Slice<PostResponse> postResponsePage = convertirPaginaAResponse(postPage, usuarioId);
 
         return new PaginatedResponse<>(postResponsePage);
     }
@@ -332,36 +349,271 @@ public class PostService {
     /**
      * CORREGIDO: Ahora recibe Long usuarioId en lugar de String emailUsuario
      */
-    public PaginatedResponse<PostResponse> obtenerPostsPopularesPaginados(int pagina, int tamano, Long usuarioId) {
+    public PaginatedResponse<PostResponse> obtenerPostsPopularesPaginados(int pagina, int tamano, Long usuarioId, boolean conTotal) {
         if (tamano > 50) tamano = 50;
         if (pagina < 0) pagina = 0;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Post> postPage = postRepository.findAllByOrderByLikeCountDesc(pageable);
+        Slice<Post> postPage = conTotal
+                ? postRepository.findAllByOrderByLikeCountDesc(pageable)
+                : postRepository.findSliceByOrderByLikeCountDesc(pageable);
 
         // CORREGIDO: Usar usuarioId directamente
-        Page<PostResponse> postResponsePage = postPage.map(post -> convertirAResponse(post, usuarioId));
+        Slice<PostResponse> postResponsePage = convertirPaginaAResponse(postPage, usuarioId);
 
         return new PaginatedResponse<>(postResponsePage);
     }
 
+    /**
+     * Tendencias: orden por hot_score (likes y comentarios ponderados por antigüedad,
+     * ver TendenciasService). Solo lee la página de ids del índice idx_post_hot_score,
+     * sin COUNT, y luego los posts de esa página.
+     */
+    public PaginatedResponse<PostResponse> obtenerTendencias(int pagina, int tamano, Long usuarioId) {
+        if (tamano > 50) tamano = 50;
+        if (pagina < 0) pagina = 0;
+
+        Pageable pageable = PageRequest.of(pagina, tamano);
+        Slice<Long> ids = postRepository.buscarIdsTendencias(pageable);
+        Slice<Post> postPage = new SliceImpl<>(cargarEnOrden(ids.getContent()), pageable, ids.hasNext());
+
+        return new PaginatedResponse<>(convertirPaginaAResponse(postPage, usuarioId));
+    }
+
+    // ========== FEED CON CURSOR (keyset) ==========
+
+    /**
+     * Feed infinito sin OFFSET ni COUNT(*): se piden tamano + 1 filas después del
+     * cursor; la fila extra solo indica si hay más. categoriaId es opcional.
+     */
+    public CursorPaginatedResponse<PostResponse> obtenerFeed(String cursor, int tamano, Long categoriaId, Long usuarioActualId) {
+        if (tamano > 50) tamano = 50;
+
+        CursorUtils.Posicion posicion = CursorUtils.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamano + 1);
+
+        List<Post> posts;
+        if (categoriaId != null) {
+            posts = posicion == null
+                    ? postRepository.feedCategoriaInicio(categoriaId, limite)
+                    : postRepository.feedCategoriaDespuesDe(categoriaId, posicion.getFecha(), posicion.getId(), limite);
+        } else {
+            posts = posicion == null
+                    ? postRepository.feedInicio(limite)
+                    : postRepository.feedDespuesDe(posicion.getFecha(), posicion.getId(), limite);
+        }
+
+        return construirPaginaCursor(posts, tamano, usuarioActualId);
+    }
+
+    public CursorPaginatedResponse<PostResponse> obtenerFeedPorUsuario(Long usuarioId, String cursor, int tamano, Long usuarioActualId) {
+        if (tamano > 50) tamano = 50;
+
+        CursorUtils.Posicion posicion = CursorUtils.decodificar(cursor);
+        Pageable limite = PageRequest.of(0, tamano + 1);
+
+        List<Post> posts = posicion == null
+                ? postRepository.feedUsuarioInicio(usuarioId, limite)
+                : postRepository.feedUsuarioDespuesDe(usuarioId, posicion.getFecha(), posicion.getId(), limite);
+
+        return construirPaginaCursor(posts, tamano, usuarioActualId);
+    }
+
+    private CursorPaginatedResponse<PostResponse> construirPaginaCursor(List<Post> posts, int tamano, Long usuarioActualId) {
+        boolean hayMas = posts.size() > tamano;
+        List<Post> pagina = hayMas ? posts.subList(0, tamano) : posts;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            Post ultimo = pagina.get(pagina.size() - 1);
+            siguienteCursor = CursorUtils.codificar(ultimo.getFechaCreacion(), ultimo.getId());
+        }
+
+        return new CursorPaginatedResponse<>(
+                convertirListaAResponse(pagina, usuarioActualId), siguienteCursor, hayMas, tamano);
+    }
+
+    // ========== EXPORTACIÓN EN STREAMING ==========
+
+    /**
+     * Todos los posts escritos directamente en la respuesta, como NDJSON (un post por
+     * línea) o como array JSON. Se leen con un Stream y se convierten por lotes: la
+     * memoria no depende de cuántos posts haya.
+     */
+    @Transactional(readOnly = true)
+    public void exportarTodosPosts(OutputStream salida, boolean ndjson) throws IOException {
+        try (Stream<Post> posts = postRepository.streamTodos()) {
+            escribirEnStreaming(posts, null, salida, ndjson);
+        }
+    }
+
+    // Posts del usuario autenticado (con sus propios likes marcados)
+    @Transactional(readOnly = true)
+    public void exportarMisPosts(Long usuarioId, OutputStream salida, boolean ndjson) throws IOException {
+        try (Stream<Post> posts = postRepository.streamPorUsuario(usuarioId)) {
+            escribirEnStreaming(posts, usuarioId, salida, ndjson);
+        }
+    }
+
+    // Para X-Total-Posts de las exportaciones; null = todos los posts
+    @Transactional(readOnly = true)
+    public long contarPosts(Long usuarioId) {
+        return usuarioId == null ? postRepository.count() : postRepository.countByUsuarioId(usuarioId);
+    }
+
+    private void escribirEnStreaming(Stream<Post> posts, Long usuarioActualId,
+                                     OutputStream salida, boolean ndjson) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida)) {
+            // El stream de la respuesta lo cierra el contenedor
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+
+            if (!ndjson) json.writeStartArray();
+
+            List<Post> lote = new ArrayList<>(LOTE_EXPORTACION);
+            Iterator<Post> it = posts.iterator();
+            while (it.hasNext()) {
+                lote.add(it.next());
+                if (lote.size() == LOTE_EXPORTACION) {
+                    escribirLote(json, lote, usuarioActualId, ndjson);
+                }
+            }
+            escribirLote(json, lote, usuarioActualId, ndjson);
+
+            if (!ndjson) json.writeEndArray();
+        }
+    }
+
+    // Likes y comentarios del lote en una consulta cada uno; luego se sueltan las entidades
+    private void escribirLote(JsonGenerator json, List<Post> lote, Long usuarioActualId, boolean ndjson) throws IOException {
+        if (lote.isEmpty()) return;
+
+        for (PostResponse response : convertirListaAResponse(lote, usuarioActualId)) {
+            json.writeObject(response);
+            if (ndjson) json.writeRaw('\n');
+        }
+        json.flush();
+
+        lote.clear();
+        entityManager.clear();
+    }
+
     // ========== MÉTODOS AUXILIARES ==========
 
+    // Carga los posts de una página de ids respetando el orden de los ids (relevancia)
+    private List<Post> cargarEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Post> porId = postRepository.findConAutorYCategoriaByIdIn(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    // Si no tenemos el ID, buscar por email (fallback)
+    private Long resolverUsuarioId(Long usuarioId, String emailUsuario) {
+        Long userIdToUse = usuarioId;
+        if (userIdToUse == null && emailUsuario != null) {
+            Usuario usuario = usuarioRepository.findByEmail(emailUsuario)
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            userIdToUse = usuario.getId();
+        }
+
+        if (userIdToUse == null) {
+            throw new RuntimeException("No se pudo identificar al usuario");
+        }
+        return userIdToUse;
+    }
+
+    /**
+     * Registra el delta en el contador write-behind y arma la respuesta con el
+     * contador resultante (persistido + pendientes + este click), sin recargar el post.
+     */
+    private PostResponse construirRespuestaLike(Post post, int delta, boolean dioLike) {
+        likeCounterService.registrar(post.getId(), delta);
+        tendenciasService.registrarLike(post.getId(), delta);
+
+        PostResponse response = convertirAResponse(post, dioLike, comentarioRepository.countByPostId(post.getId()));
+        response.setLikeCount((int) Math.max(0, response.getLikeCount() + delta));
+        return response;
+    }
+
+    // like_count persistido + deltas que el flush aún no aplicó
+    private int likeCountActual(Post post) {
+        long persistido = post.getLikeCount() != null ? post.getLikeCount() : 0;
+        return (int) Math.max(0, persistido + likeCounterService.pendiente(post.getId()));
+    }
+
     private PostResponse convertirAResponse(Post post) {
         return convertirAResponse(post, null);
     }
 
     /**
-     * ✅ CORREGIDO: Verificación de like con sincronización forzada
+     * Post individual: un solo exists para saber si el usuario actual dio like.
      */
     private PostResponse convertirAResponse(Post post, Long usuarioActualId) {
+        boolean dioLike = usuarioActualId != null
+                && likeRepository.existsByUsuarioIdAndPostId(usuarioActualId, post.getId());
+        return convertirAResponse(post, dioLike, comentarioRepository.countByPostId(post.getId()));
+    }
+
+    /**
+     * Páginas de posts: resuelve "likedByCurrentUser" y el conteo de comentarios
+     * de toda la página con una consulta cada uno, en lugar de consultar por post
+     * e inicializar la colección lazy de comentarios.
+     */
+    private Slice<PostResponse> convertirPaginaAResponse(Slice<Post> postPage, Long usuarioActualId) {
+        List<PostResponse> contenido = convertirListaAResponse(postPage.getContent(), usuarioActualId);
+        if (postPage instanceof Page<Post> page) {
+            return new PageImpl<>(contenido, page.getPageable(), page.getTotalElements());
+        }
+        return new SliceImpl<>(contenido, postPage.getPageable(), postPage.hasNext());
+    }
+
+    private List<PostResponse> convertirListaAResponse(List<Post> posts, Long usuarioActualId) {
+        Set<Long> postsConLike = obtenerPostsConLike(posts, usuarioActualId);
+        Map<Long, Long> comentariosPorPost = contarComentarios(posts);
+
+        return posts.stream()
+                .map(post -> convertirAResponse(post,
+                        postsConLike.contains(post.getId()),
+                        comentariosPorPost.getOrDefault(post.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private Set<Long> obtenerPostsConLike(List<Post> posts, Long usuarioActualId) {
+        if (usuarioActualId == null || posts.isEmpty()) {
+            return Set.of();
+        }
+        List<Long> postIds = posts.stream()
+                .map(Post::getId)
+                .collect(Collectors.toList());
+        return new HashSet<>(likeRepository.findPostIdsConLikeDelUsuario(usuarioActualId, postIds));
+    }
+
+    private Map<Long, Long> contarComentarios(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> postIds = posts.stream()
+                .map(Post::getId)
+                .collect(Collectors.toList());
+        return comentarioRepository.contarPorPostIds(postIds).stream()
+                .collect(Collectors.toMap(ConteoPorId::getId, ConteoPorId::getTotal));
+    }
+
+    private PostResponse convertirAResponse(Post post, boolean dioLike, long totalComentarios) {
         PostResponse response = new PostResponse();
         response.setId(post.getId());
         response.setTitulo(post.getTitulo());
         response.setContenido(post.getContenido());
         response.setFotoLink(post.getFotoLink());
         response.setFechaCreacion(post.getFechaCreacion());
-        response.setLikeCount(post.getLikeCount());
+        response.setLikeCount(likeCountActual(post));
 
         // Convertir Usuario
         PostResponse.UsuarioResponse usuarioResponse = new PostResponse.UsuarioResponse();
@@ -371,30 +623,18 @@ public class PostService {
         usuarioResponse.setFotoPerfil(post.getUsuario().getFotoPerfil());
         response.setAutor(usuarioResponse);
 
-        // Convertir Categoria
+        // Convertir Categoria (nombre desde el snapshot; el id es la FK, no inicializa el proxy)
+        Long categoriaId = post.getCategoria().getId();
         PostResponse.CategoriaResponse categoriaResponse = new PostResponse.CategoriaResponse();
-        categoriaResponse.setId(post.getCategoria().getId());
-        categoriaResponse.setNombre(post.getCategoria().getNombre());
+        categoriaResponse.setId(categoriaId);
+        categoriaResponse.setNombre(categoriaCache.obtener(categoriaId)
+                .map(CategoriaCache.CategoriaInfo::nombre)
+                .orElseGet(() -> post.getCategoria().getNombre()));
         response.setCategoria(categoriaResponse);
 
-        // Contar comentarios
-        response.setComentariosCount(post.getComentarios() != null
-                ? (long) post.getComentarios().size()
-                : 0L);
-
-        // ✅ CORREGIDO: Verificar like con flush forzado y recarga desde BD
-        boolean dioLike = false;
-        if (usuarioActualId != null) {
-            // Forzar sincronización de cualquier operación pendiente
-            likeRepository.flush();
+        // Conteo ya resuelto por el llamador (sin tocar post.getComentarios())
+        response.setComentariosCount(totalComentarios);
 
-            // Usar count en lugar de exists (más confiable con Hibernate)
-            long likeCount = likeRepository.countByUsuarioIdAndPostId(usuarioActualId, post.getId());
-            dioLike = likeCount > 0;
-
-            System.out.println("DEBUG - convertirAResponse: usuario=" + usuarioActualId +
-                    " post=" + post.getId() + " likeCount=" + likeCount + " dioLike=" + dioLike);
-        }
         response.setLikedByCurrentUser(dioLike);
 
         return response;
@@ -0,0 +1,99 @@
+package com.flaco.hooked.domain.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Reconciliación periódica de lo que leen los rankings de usuarios.
+ *
+ * usuario_stats se mantiene con incrementos (posts, likes, comentarios); este job
+ * lo recalcula desde las tablas de origen por rangos de ids de usuario, corrigiendo
+ * cualquier deriva y creando la fila de quien no la tenga. También pone en 0 las
+ * rachas rotas (último login antes de ayer) para que el ranking de rachas no muestre
+ * rachas que ya no existen: al próximo login calcularRacha las reinicia igual.
+ */
+@Service
+public class ReconciliacionStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliacionStatsService.class);
+
+    private static final String SQL_RECALCULAR =
+            "INSERT INTO usuario_stats (usuario_id, total_posts, total_likes_recibidos, total_comentarios) " +
+            "SELECT u.id, COALESCE(p.total, 0), COALESCE(p.likes, 0), COALESCE(c.total, 0) " +
+            "FROM usuarios u " +
+            "LEFT JOIN (SELECT usuario_id, COUNT(*) AS total, SUM(COALESCE(like_count, 0)) AS likes " +
+            "           FROM posts WHERE usuario_id > ? AND usuario_id <= ? GROUP BY usuario_id) p ON p.usuario_id = u.id " +
+            "LEFT JOIN (SELECT usuario_id, COUNT(*) AS total " +
+            "           FROM comentarios WHERE usuario_id > ? AND usuario_id <= ? GROUP BY usuario_id) c ON c.usuario_id = u.id " +
+            "WHERE u.id > ? AND u.id <= ? " +
+            "ON DUPLICATE KEY UPDATE total_posts = VALUES(total_posts), " +
+            "total_likes_recibidos = VALUES(total_likes_recibidos), total_comentarios = VALUES(total_comentarios)";
+
+    // Las rachas pendientes en ActividadUsuarioService se escriben con COALESCE y pisan este 0
+    private static final String SQL_CORTAR_RACHAS =
+            "UPDATE usuarios SET racha_actual = 0 " +
+            "WHERE id > ? AND id <= ? AND racha_actual > 0 AND (ultimo_login IS NULL OR ultimo_login < ?)";
+
+    @Value("${hooked.ranking.reconciliacion.tamano-lote:2000}")
+    private long tamanoLote;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LikeCounterService likeCounterService;
+
+    @Scheduled(initialDelayString = "${hooked.ranking.reconciliacion.retraso-inicial-ms:300000}",
+            fixedDelayString = "${hooked.ranking.reconciliacion.intervalo-ms:86400000}")
+    public synchronized void reconciliar() {
+        try {
+            ejecutar();
+        } catch (Exception e) {
+            logger.error("Error en la reconciliación de usuario_stats; se reintenta en el próximo ciclo", e);
+        }
+    }
+
+    private void ejecutar() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM usuarios", Long.class);
+        if (maxId == null) return;
+
+        // like_count y usuario_stats reciben los mismos deltas: se vuelcan antes de comparar
+        likeCounterService.flush();
+
+        // Rota si el último login fue antes de ayer
+        Timestamp corteRacha = Timestamp.valueOf(LocalDate.now().minusDays(1).atStartOfDay());
+        long inicio = System.currentTimeMillis();
+        long filasAfectadas = 0;
+        long rachasCortadas = 0;
+
+        for (long desde = 0; desde < maxId; desde += tamanoLote) {
+            long hasta = Math.min(desde + tamanoLote, maxId);
+            long desdeLote = desde;
+
+            long[] resultado = transactionTemplate.execute(status -> new long[]{
+                    jdbcTemplate.update(SQL_RECALCULAR, desdeLote, hasta, desdeLote, hasta, desdeLote, hasta),
+                    jdbcTemplate.update(SQL_CORTAR_RACHAS, desdeLote, hasta, corteRacha)
+            });
+            if (resultado != null) {
+                // ON DUPLICATE KEY UPDATE cuenta 2 por fila cambiada, 1 por fila nueva y 0 si no cambió
+                filasAfectadas += resultado[0];
+                rachasCortadas += resultado[1];
+            }
+        }
+
+        logger.info("Reconciliación de usuario_stats: {} filas afectadas, {} rachas cortadas en {} ms",
+                filasAfectadas, rachasCortadas, System.currentTimeMillis() - inicio);
+    }
+}
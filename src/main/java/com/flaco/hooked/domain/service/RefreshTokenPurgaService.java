@@ -0,0 +1,191 @@
+package com.flaco.hooked.domain.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purga de refresh_tokens expirados o inactivos por rangos de id acotados.
+ * Reemplaza el DELETE único de RefreshTokenService, que en una tabla grande
+ * retenía locks (y bloqueaba logins) durante todo el borrado.
+ *
+ * Cada lote borra en (desde, desde + tamaño] y guarda el id alcanzado en
+ * tareas_checkpoint en la misma transacción, con una pausa entre lotes.
+ * Si la aplicación se reinicia a mitad de ciclo, el siguiente sigue desde ahí.
+ */
+@Service
+public class RefreshTokenPurgaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenPurgaService.class);
+
+    private static final String TAREA = "purga_refresh_tokens";
+
+    private static final String SQL_BORRAR_LOTE =
+            "DELETE FROM refresh_tokens WHERE id > ? AND id <= ? " +
+            "AND (fecha_expiracion < ? OR activo = false)";
+
+    private static final String SQL_LEER_CHECKPOINT =
+            "SELECT ultimo_id, ciclo_completado_en FROM tareas_checkpoint WHERE nombre = ?";
+
+    private static final String SQL_GUARDAR_CHECKPOINT =
+            "INSERT INTO tareas_checkpoint (nombre, ultimo_id) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE ultimo_id = VALUES(ultimo_id)";
+
+    private static final String SQL_CERRAR_CICLO =
+            "INSERT INTO tareas_checkpoint (nombre, ultimo_id, ciclo_completado_en) VALUES (?, 0, ?) " +
+            "ON DUPLICATE KEY UPDATE ultimo_id = 0, ciclo_completado_en = VALUES(ciclo_completado_en)";
+
+    @Value("${hooked.refresh-tokens.purga.tamano-lote:5000}")
+    private long tamanoLote;
+
+    @Value("${hooked.refresh-tokens.purga.pausa-ms:200}")
+    private long pausaMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter filasEliminadas;
+
+    // Para los gauges: último ritmo medido, ids que faltan recorrer y fin del último ciclo
+    private final AtomicLong filasPorSegundo = new AtomicLong();
+    private final AtomicLong idsPendientes = new AtomicLong();
+    private volatile LocalDateTime ultimoCicloCompleto;
+
+    @PostConstruct
+    void registrarMetricas() {
+        filasEliminadas = Counter.builder("hooked.purga.refresh_tokens.eliminados")
+                .description("Refresh tokens borrados por la purga")
+                .register(meterRegistry);
+        Gauge.builder("hooked.purga.refresh_tokens.filas_por_segundo", filasPorSegundo, AtomicLong::get)
+                .description("Ritmo de borrado de la última ejecución")
+                .register(meterRegistry);
+        Gauge.builder("hooked.purga.refresh_tokens.ids_pendientes", idsPendientes, AtomicLong::get)
+                .description("Rango de ids que falta recorrer en el ciclo actual")
+                .register(meterRegistry);
+        Gauge.builder("hooked.purga.refresh_tokens.retraso_segundos", this, RefreshTokenPurgaService::segundosDesdeUltimoCiclo)
+                .description("Segundos desde el último ciclo completo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${hooked.refresh-tokens.purga.retraso-inicial-ms:60000}",
+            fixedDelayString = "${hooked.refresh-tokens.purga.intervalo-ms:86400000}")
+    public synchronized void purgar() {
+        try {
+            ejecutarCiclo();
+        } catch (Exception e) {
+            logger.error("Error en la purga de refresh tokens; se retoma desde el último checkpoint", e);
+        }
+
+        refreshTokenStore.purgarExpiradas();
+    }
+
+    // ========== CICLO POR LOTES ==========
+
+    private void ejecutarCiclo() {
+        long desde = leerCheckpoint();
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM refresh_tokens", Long.class);
+        if (maxId == null || desde >= maxId) {
+            cerrarCiclo();
+            return;
+        }
+
+        // Mismo corte para todo el ciclo: lo que expire mientras tanto entra en el próximo
+        Timestamp corte = Timestamp.valueOf(LocalDateTime.now());
+        long inicio = System.currentTimeMillis();
+        long totalEliminadas = 0;
+
+        if (desde > 0) {
+            logger.info("Purga de refresh tokens: retomando desde id {}", desde);
+        } else {
+            // Ciclo nuevo: arranca en el id más bajo, no en 0
+            Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM refresh_tokens", Long.class);
+            desde = minId != null ? minId - 1 : 0;
+        }
+
+        while (desde < maxId) {
+            long hasta = Math.min(desde + tamanoLote, maxId);
+            long desdeLote = desde;
+
+            Integer eliminadas = transactionTemplate.execute(status -> {
+                int filas = jdbcTemplate.update(SQL_BORRAR_LOTE, desdeLote, hasta, corte);
+                jdbcTemplate.update(SQL_GUARDAR_CHECKPOINT, TAREA, hasta);
+                return filas;
+            });
+
+            int filas = eliminadas != null ? eliminadas : 0;
+            totalEliminadas += filas;
+            filasEliminadas.increment(filas);
+            idsPendientes.set(maxId - hasta);
+            desde = hasta;
+
+            if (desde < maxId && !pausar()) {
+                return;
+            }
+        }
+
+        cerrarCiclo();
+
+        long duracionMs = Math.max(1, System.currentTimeMillis() - inicio);
+        filasPorSegundo.set(totalEliminadas * 1000 / duracionMs);
+        logger.info("Purga de refresh tokens completada: {} filas en {} ms", totalEliminadas, duracionMs);
+    }
+
+    private long leerCheckpoint() {
+        List<Long> filas = jdbcTemplate.query(SQL_LEER_CHECKPOINT, (rs, i) -> {
+            Timestamp completado = rs.getTimestamp("ciclo_completado_en");
+            if (completado != null && ultimoCicloCompleto == null) {
+                ultimoCicloCompleto = completado.toLocalDateTime();
+            }
+            return rs.getLong("ultimo_id");
+        }, TAREA);
+        return filas.isEmpty() ? 0L : filas.get(0);
+    }
+
+    private void cerrarCiclo() {
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.update(SQL_CERRAR_CICLO, TAREA, Timestamp.valueOf(ahora));
+        ultimoCicloCompleto = ahora;
+        idsPendientes.set(0);
+    }
+
+    // Deja respirar a los logins entre lotes; false si interrumpen el hilo
+    private boolean pausar() {
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Purga de refresh tokens interrumpida; se retoma desde el checkpoint");
+            return false;
+        }
+    }
+
+    private double segundosDesdeUltimoCiclo() {
+        LocalDateTime ultimo = ultimoCicloCompleto;
+        return ultimo == null ? -1 : Duration.between(ultimo, LocalDateTime.now()).getSeconds();
+    }
+}
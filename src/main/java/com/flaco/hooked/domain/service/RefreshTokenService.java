@@ -1,18 +1,22 @@
 package com.flaco.hooked.domain.service;
 
+import com.flaco.hooked.configuration.TransactionUtils;
 import com.flaco.hooked.domain.refreshtoken.RefreshToken;
 import com.flaco.hooked.domain.refreshtoken.RefreshTokenException;
 import com.flaco.hooked.domain.repository.RefreshTokenRepository;
+import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.domain.service.RefreshTokenStore.SesionRefresh;
 import com.flaco.hooked.model.Usuario;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +32,8 @@ public class RefreshTokenService {
     }
 
     @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private RefreshTokenStore refreshTokenStore;
+    @Autowired private UsuarioRepository usuarioRepository;
 
     @Value("${hooked.jwt.refresh-expiration-seconds:2592000}") // 30 días
     private long refreshTokenDuracionSegundos;
@@ -44,12 +50,36 @@ public class RefreshTokenService {
         token.setIpAddress(ipAddress);
         token.setActivo(true);
 
-        return refreshTokenRepository.save(token);
+        RefreshToken guardado = refreshTokenRepository.save(token);
+
+        SesionRefresh sesion = SesionRefresh.de(guardado);
+        TransactionUtils.despuesDelCommit(() -> refreshTokenStore.agregar(sesion));
+        return guardado;
     }
 
     public Optional<RefreshToken> buscarPorToken(String tokenValue) {
         if (!esValido(tokenValue)) return Optional.empty();
-        return refreshTokenRepository.findByTokenAndActivoTrue(tokenValue);
+
+        if (refreshTokenStore.estaListo()) {
+            Optional<SesionRefresh> sesion = refreshTokenStore.buscar(tokenValue);
+            if (sesion.isPresent()) {
+                // Otra instancia pudo revocarlo (logout, logout-all, límite de sesiones) sin que
+                // esta memoria se entere: activo se confirma siempre en BD por el índice único
+                if (refreshTokenRepository.existsByTokenAndActivoTrue(tokenValue)) {
+                    return sesion.map(this::aEntidad);
+                }
+                refreshTokenStore.quitar(tokenValue); // la revocación ya está confirmada
+                return Optional.empty();
+            }
+        }
+
+        // Aún cargando, o creado por otra instancia: se consulta y se guarda en memoria
+        Optional<RefreshToken> token = refreshTokenRepository.findByTokenAndActivoTrue(tokenValue);
+        token.ifPresent(t -> {
+            SesionRefresh sesion = SesionRefresh.de(t);
+            TransactionUtils.despuesDelCommit(() -> refreshTokenStore.agregar(sesion));
+        });
+        return token;
     }
 
     public RefreshToken verificarExpiracion(RefreshToken token) {
@@ -63,22 +93,37 @@ public class RefreshTokenService {
     public void revocarToken(String tokenValue) {
         if (!esValido(tokenValue)) return;
 
-        refreshTokenRepository.findByTokenAndActivoTrue(tokenValue)
-                .ifPresent(this::desactivarToken);
+        // UPDATE directo por token (índice único), sin leer la fila antes
+        refreshTokenRepository.desactivarToken(tokenValue);
+        TransactionUtils.despuesDelCommit(() -> refreshTokenStore.quitar(tokenValue));
     }
 
     public void revocarTodosTokensDelUsuario(Usuario usuario) {
         if (usuario == null) return;
         refreshTokenRepository.desactivarTodosTokensDelUsuario(usuario);
+
+        Long usuarioId = usuario.getId();
+        TransactionUtils.despuesDelCommit(() -> refreshTokenStore.quitarDelUsuario(usuarioId));
     }
 
     public List<RefreshToken> obtenerTokensActivosDelUsuario(Usuario usuario) {
         if (usuario == null) return List.of();
+
+        if (refreshTokenStore.estaListo()) {
+            // Más recientes primero, como findByUsuarioAndActivoTrueOrderByFechaCreacionDesc
+            List<SesionRefresh> sesiones = new ArrayList<>(refreshTokenStore.delUsuario(usuario.getId()));
+            Collections.reverse(sesiones);
+            return sesiones.stream().map(this::aEntidad).toList();
+        }
         return refreshTokenRepository.findByUsuarioAndActivoTrueOrderByFechaCreacionDesc(usuario);
     }
 
     public int contarTokensActivosDelUsuario(Usuario usuario) {
         if (usuario == null) return 0;
+
+        if (refreshTokenStore.estaListo()) {
+            return refreshTokenStore.delUsuario(usuario.getId()).size();
+        }
         return refreshTokenRepository.contarTokensActivosDelUsuario(usuario);
     }
 
@@ -100,23 +145,36 @@ public class RefreshTokenService {
     // ========== MÉTODOS PRIVADOS ==========
 
     private void limpiarTokensExcesivos(Usuario usuario) {
-        int activos = contarTokensActivosDelUsuario(usuario);
-
-        if (activos >= MAX_TOKENS_POR_USUARIO) {
-            List<RefreshToken> tokens = refreshTokenRepository
-                    .findByUsuarioAndActivoTrueOrderByFechaCreacionAsc(usuario);
-
-            int aDesactivar = activos - MAX_TOKENS_POR_USUARIO + 1;
-
-            tokens.stream()
-                    .limit(aDesactivar)
-                    .forEach(this::desactivarToken);
+        List<String> activos = refreshTokenStore.estaListo()
+                ? refreshTokenStore.delUsuario(usuario.getId()).stream()
+                        .map(SesionRefresh::token)
+                        .toList()
+                : refreshTokenRepository.findByUsuarioAndActivoTrueOrderByFechaCreacionAsc(usuario).stream()
+                        .map(RefreshToken::getToken)
+                        .toList();
+
+        if (activos.size() >= MAX_TOKENS_POR_USUARIO) {
+            int aDesactivar = activos.size() - MAX_TOKENS_POR_USUARIO + 1;
+            List<String> masAntiguos = activos.subList(0, aDesactivar);
+
+            // Un solo UPDATE para todos en lugar de un save() por token
+            refreshTokenRepository.desactivarTokens(masAntiguos);
+            TransactionUtils.despuesDelCommit(() -> masAntiguos.forEach(refreshTokenStore::quitar));
         }
     }
 
-    private void desactivarToken(RefreshToken token) {
-        token.setActivo(false);
-        refreshTokenRepository.save(token);
+    // Entidad desligada con los datos en memoria; el usuario es una referencia lazy por id
+    private RefreshToken aEntidad(SesionRefresh sesion) {
+        RefreshToken token = new RefreshToken(
+                sesion.token(),
+                usuarioRepository.getReferenceById(sesion.usuarioId()),
+                sesion.fechaCreacion(),
+                sesion.fechaExpiracion(),
+                sesion.dispositivoInfo(),
+                sesion.ipAddress()
+        );
+        token.setId(sesion.id());
+        return token;
     }
 
     private String truncar(String valor, int maxLength) {
@@ -124,15 +182,7 @@ public class RefreshTokenService {
         return valor.length() > maxLength ? valor.substring(0, maxLength) : valor;
     }
 
-    @Scheduled(fixedRate = 86400000) // 24 horas
-    public void limpiarTokensExpirados() {
-        try {
-            refreshTokenRepository.eliminarTokensExpiradosOInactivos(LocalDateTime.now());
-            logger.info("Limpieza de refresh tokens completada");
-        } catch (Exception e) {
-            logger.error("Error al limpiar tokens expirados", e);
-        }
-    }
+    // La purga de expirados/inactivos está en RefreshTokenPurgaService (por lotes)
 
     // ========== RECORD PARA SESIONES ==========
 
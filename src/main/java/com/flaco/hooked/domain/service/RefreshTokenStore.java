@@ -0,0 +1,170 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.refreshtoken.RefreshToken;
+import com.flaco.hooked.domain.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sesiones de refresh token activas en memoria, por token y por usuario.
+ * RefreshTokenService responde desde aquí (login, refresh, sesiones activas)
+ * y escribe en refresh_tokens para no perder nada al reiniciar.
+ *
+ * Se carga al arrancar con los tokens activos y vigentes; hasta entonces el
+ * servicio sigue consultando la BD. Los cambios se aplican tras el commit.
+ *
+ * Solo ve las revocaciones hechas por esta instancia: para /refresh la memoria
+ * aporta los datos de la sesión, pero activo se confirma en la BD.
+ */
+@Component
+public class RefreshTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private static final Comparator<SesionRefresh> POR_FECHA_CREACION =
+            Comparator.comparing(SesionRefresh::fechaCreacion)
+                    .thenComparing(SesionRefresh::id, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private final Map<String, SesionRefresh> porToken = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> porUsuario = new ConcurrentHashMap<>();
+
+    // Revocados mientras corría la carga: la foto de la BD puede ser anterior
+    private final Set<String> quitadosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean listo = false;
+
+    public boolean estaListo() {
+        return listo;
+    }
+
+    // ========== CARGA ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        long inicio = System.currentTimeMillis();
+
+        List<RefreshToken> activos = refreshTokenRepository.findActivosVigentes(LocalDateTime.now());
+        activos.stream()
+                .map(SesionRefresh::de)
+                .filter(s -> !quitadosDuranteCarga.contains(s.token()))
+                .forEach(this::agregarSiFalta);
+
+        listo = true;
+        quitadosDuranteCarga.clear();
+
+        logger.info("Sesiones de refresh token en memoria: {} en {} ms",
+                activos.size(), System.currentTimeMillis() - inicio);
+    }
+
+    // ========== CONSULTAS ==========
+
+    public Optional<SesionRefresh> buscar(String token) {
+        return Optional.ofNullable(porToken.get(token));
+    }
+
+    // Activas del usuario, más antiguas primero
+    public List<SesionRefresh> delUsuario(Long usuarioId) {
+        Set<String> tokens = porUsuario.get(usuarioId);
+        if (tokens == null) {
+            return List.of();
+        }
+        return tokens.stream()
+                .map(porToken::get)
+                .filter(Objects::nonNull)
+                .sorted(POR_FECHA_CREACION)
+                .toList();
+    }
+
+    // ========== CAMBIOS (llamar tras el commit) ==========
+
+    public void agregar(SesionRefresh sesion) {
+        porToken.put(sesion.token(), sesion);
+        porUsuario.computeIfAbsent(sesion.usuarioId(), id -> ConcurrentHashMap.newKeySet())
+                .add(sesion.token());
+    }
+
+    public void quitar(String token) {
+        if (!listo) {
+            quitadosDuranteCarga.add(token);
+        }
+
+        SesionRefresh sesion = porToken.remove(token);
+        if (sesion != null) {
+            porUsuario.computeIfPresent(sesion.usuarioId(), (id, tokens) -> {
+                tokens.remove(token);
+                return tokens.isEmpty() ? null : tokens;
+            });
+        }
+    }
+
+    public void quitarDelUsuario(Long usuarioId) {
+        Set<String> tokens = porUsuario.remove(usuarioId);
+        if (tokens != null) {
+            if (!listo) {
+                quitadosDuranteCarga.addAll(tokens);
+            }
+            tokens.forEach(porToken::remove);
+        }
+    }
+
+    public int purgarExpiradas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<String> expiradas = porToken.values().stream()
+                .filter(s -> s.fechaExpiracion().isBefore(ahora))
+                .map(SesionRefresh::token)
+                .toList();
+
+        expiradas.forEach(this::quitar);
+        return expiradas.size();
+    }
+
+    private void agregarSiFalta(SesionRefresh sesion) {
+        if (porToken.putIfAbsent(sesion.token(), sesion) == null) {
+            porUsuario.computeIfAbsent(sesion.usuarioId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(sesion.token());
+        }
+    }
+
+    // ========== SNAPSHOT ==========
+
+    /**
+     * Copia inmutable de un refresh token activo; guarda solo el id del usuario
+     * para no retener entidades ni proxies fuera de su sesión de Hibernate.
+     */
+    public record SesionRefresh(
+            Long id,
+            String token,
+            Long usuarioId,
+            LocalDateTime fechaCreacion,
+            LocalDateTime fechaExpiracion,
+            String dispositivoInfo,
+            String ipAddress
+    ) {
+        public static SesionRefresh de(RefreshToken token) {
+            return new SesionRefresh(
+                    token.getId(),
+                    token.getToken(),
+                    token.getUsuario().getId(), // FK del proxy, no lo inicializa
+                    token.getFechaCreacion(),
+                    token.getFechaExpiracion(),
+                    token.getDispositivoInfo(),
+                    token.getIpAddress()
+            );
+        }
+
+        public boolean estaExpirada() {
+            return fechaExpiracion.isBefore(LocalDateTime.now());
+        }
+    }
+}
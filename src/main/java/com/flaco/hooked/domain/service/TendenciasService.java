@@ -0,0 +1,156 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.configuration.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puntaje de tendencia (posts.hot_score, índice idx_post_hot_score de V8).
+ *
+ * Cada post nuevo, like o comentario suma su peso en memoria y un flush lo aplica
+ * por lotes, como LikeCounterService. Un pase periódico multiplica los puntajes
+ * vivos por el factor de decaimiento (vida media configurable) y deja en 0 los
+ * que caen bajo el umbral, así los posts viejos salen solos de /tendencias.
+ */
+@Service
+public class TendenciasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TendenciasService.class);
+
+    private static final String SQL_SUMAR =
+            "UPDATE posts SET hot_score = GREATEST(hot_score + ?, 0) WHERE id = ?";
+
+    private static final String SQL_IDS_VIVOS =
+            "SELECT id FROM posts WHERE hot_score > 0 AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String SQL_DECAER =
+            "UPDATE posts SET hot_score = IF(hot_score * ? < ?, 0, hot_score * ?) " +
+            "WHERE id BETWEEN ? AND ? AND hot_score > 0";
+
+    private static final int LOTE_DECAIMIENTO = 1000;
+
+    @Value("${hooked.tendencias.peso-post:1}")
+    private double pesoPost;
+
+    @Value("${hooked.tendencias.peso-like:1}")
+    private double pesoLike;
+
+    @Value("${hooked.tendencias.peso-comentario:2}")
+    private double pesoComentario;
+
+    @Value("${hooked.tendencias.vida-media-horas:24}")
+    private double vidaMediaHoras;
+
+    @Value("${hooked.tendencias.decaimiento-ms:3600000}")
+    private long intervaloDecaimientoMs;
+
+    @Value("${hooked.tendencias.umbral:0.01}")
+    private double umbral;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Sumas pendientes por post (ya ponderadas); como en LikeCounterService se suman
+    // con merge() y el flush quita cada entrada que drena
+    private final ConcurrentHashMap<Long, Double> pendientes = new ConcurrentHashMap<>();
+
+    // ========== REGISTRO (se aplica tras el commit) ==========
+
+    public void registrarPost(Long postId) {
+        registrar(postId, pesoPost);
+    }
+
+    // delta: +1 like, -1 unlike
+    public void registrarLike(Long postId, int delta) {
+        registrar(postId, delta * pesoLike);
+    }
+
+    // delta: +1 comentario nuevo, -n al borrar un hilo
+    public void registrarComentarios(Long postId, int delta) {
+        registrar(postId, delta * pesoComentario);
+    }
+
+    // Post eliminado: lo pendiente ya no tiene fila
+    public void descartar(Long postId) {
+        TransactionUtils.despuesDelCommit(() -> pendientes.remove(postId));
+    }
+
+    private void registrar(Long postId, double puntos) {
+        if (postId == null || puntos == 0) return;
+        TransactionUtils.despuesDelCommit(() -> pendientes.merge(postId, puntos, Double::sum));
+    }
+
+    // ========== FLUSH ==========
+
+    @Scheduled(fixedDelayString = "${hooked.tendencias.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Object[]> lote = new ArrayList<>();
+        for (Long postId : pendientes.keySet()) {
+            Double puntos = pendientes.remove(postId);
+            if (puntos != null && puntos != 0) {
+                lote.add(new Object[]{puntos, postId});
+            }
+        }
+
+        if (lote.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_SUMAR, lote));
+        } catch (Exception e) {
+            logger.error("Error aplicando puntajes de tendencia ({} posts), se reintentará", lote.size(), e);
+            lote.forEach(fila -> pendientes.merge((Long) fila[1], (Double) fila[0], Double::sum));
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        flush();
+    }
+
+    // ========== DECAIMIENTO ==========
+
+    /**
+     * Multiplica los puntajes vivos (hot_score > 0) por 0.5^(intervalo / vida media),
+     * por lotes de ids para no bloquear la tabla entera.
+     */
+    @Scheduled(initialDelayString = "${hooked.tendencias.decaimiento-ms:3600000}",
+            fixedDelayString = "${hooked.tendencias.decaimiento-ms:3600000}")
+    public synchronized void decaer() {
+        double factor = Math.pow(0.5, intervaloDecaimientoMs / (vidaMediaHoras * 3_600_000d));
+        long desde = 0;
+        int actualizados = 0;
+
+        try {
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(SQL_IDS_VIVOS, Long.class, desde, LOTE_DECAIMIENTO);
+                if (ids.isEmpty()) break;
+
+                long primero = ids.get(0);
+                long ultimo = ids.get(ids.size() - 1);
+                Integer filas = transactionTemplate.execute(status ->
+                        jdbcTemplate.update(SQL_DECAER, factor, umbral, factor, primero, ultimo));
+                actualizados += filas != null ? filas : 0;
+
+                if (ids.size() < LOTE_DECAIMIENTO) break;
+                desde = ultimo;
+            }
+            logger.debug("Decaimiento de tendencias: {} posts (factor {})", actualizados, factor);
+        } catch (Exception e) {
+            logger.error("Error en el decaimiento de tendencias; se reintenta en el próximo pase", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.infrastructure.security.UsuarioPrincipal;
+import com.flaco.hooked.model.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Usuario autenticado de la petición en curso, resuelto una sola vez.
+ * El id sale del principal (claims del JWT) sin consultar la BD; solo los
+ * principals sin id caen en una búsqueda por email, memorizada en la petición.
+ * Lo usan @UsuarioActual en los controllers y los servicios que lo necesiten.
+ */
+@Service
+public class UsuarioActualService {
+
+    private static final String ATRIBUTO_ID = UsuarioActualService.class.getName() + ".id";
+    private static final String ATRIBUTO_USUARIO = UsuarioActualService.class.getName() + ".usuario";
+
+    // Marca "ya se resolvió y es anónimo" (el atributo null significa "sin resolver")
+    private static final Long SIN_USUARIO = -1L;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    // ========== ID ==========
+
+    /**
+     * @return id del usuario autenticado, null si la petición es anónima
+     */
+    public Long obtenerIdOpcional() {
+        Long id = memorizar(ATRIBUTO_ID, this::resolverId);
+        return SIN_USUARIO.equals(id) ? null : id;
+    }
+
+    public Long obtenerId() {
+        Long id = obtenerIdOpcional();
+        if (id == null) {
+            throw new RuntimeException("Autenticación requerida");
+        }
+        return id;
+    }
+
+    // ========== ENTIDAD ==========
+
+    /**
+     * Entidad del usuario autenticado. Si el principal ya es un Usuario se usa tal
+     * cual; si no, referencia lazy por id (solo se lee la fila si se usa algún campo).
+     */
+    public Usuario obtenerUsuarioOpcional() {
+        Authentication auth = autenticacion();
+        if (auth != null && auth.getPrincipal() instanceof Usuario usuario) {
+            return usuario;
+        }
+
+        Long id = obtenerIdOpcional();
+        if (id == null) {
+            return null;
+        }
+        return memorizar(ATRIBUTO_USUARIO, () -> usuarioRepository.getReferenceById(id));
+    }
+
+    public Usuario obtenerUsuario() {
+        Usuario usuario = obtenerUsuarioOpcional();
+        if (usuario == null) {
+            throw new RuntimeException("Autenticación requerida");
+        }
+        return usuario;
+    }
+
+    // ========== RESOLUCIÓN ==========
+
+    private Long resolverId() {
+        Authentication auth = autenticacion();
+        if (auth == null) {
+            return SIN_USUARIO;
+        }
+
+        Object principal = auth.getPrincipal();
+        if (principal instanceof UsuarioPrincipal usuarioPrincipal) {
+            return usuarioPrincipal.getId();
+        }
+        if (principal instanceof Usuario usuario) {
+            return usuario.getId();
+        }
+        if (principal instanceof Jwt jwt && jwt.getClaim("userId") != null) {
+            try {
+                return Long.valueOf(jwt.getClaim("userId").toString());
+            } catch (NumberFormatException e) {
+                // Claim mal formado: se intenta por email
+            }
+        }
+
+        // Último recurso: el nombre del principal es el email
+        return usuarioRepository.findByEmail(auth.getName())
+                .map(Usuario::getId)
+                .orElse(SIN_USUARIO);
+    }
+
+    private Authentication autenticacion() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth;
+    }
+
+    // Guarda el valor como atributo de la petición; fuera de una petición no memoriza
+    @SuppressWarnings("unchecked")
+    private <T> T memorizar(String atributo, Supplier<T> calcular) {
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (peticion == null) {
+            return calcular.get();
+        }
+
+        T valor = (T) peticion.getAttribute(atributo, RequestAttributes.SCOPE_REQUEST);
+        if (valor == null) {
+            valor = calcular.get();
+            peticion.setAttribute(atributo, valor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return valor;
+    }
+}
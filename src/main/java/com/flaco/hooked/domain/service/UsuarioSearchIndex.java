@@ -0,0 +1,297 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.configuration.TransactionUtils;
+import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.model.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria para buscar usuarios por nombre, email, ubicación y tags.
+ * Reemplaza los LIKE '%x%' (imposibles de indexar) de UsuarioRepository.
+ *
+ * Cada término se guarda como "campo:token" (normalizado: minúsculas y sin acentos)
+ * en un TreeMap, así un prefijo ("jua" → "juan", "juanita") es un subMap.
+ * Se mantiene al crear/editar/borrar usuarios (tras el commit) y se reconstruye
+ * al arrancar y periódicamente por si hubo cambios fuera de la aplicación.
+ */
+@Service
+public class UsuarioSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioSearchIndex.class);
+
+    private static final String NOMBRE = "n:";
+    private static final String EMAIL = "e:";
+    private static final String UBICACION = "u:";
+    private static final String TAG = "t:";
+
+    private static final int LOTE_CARGA = 500;
+
+    // Más recientes primero, igual que los ORDER BY fecha_registro DESC de antes
+    private static final Comparator<Documento> POR_FECHA_REGISTRO =
+            Comparator.comparing((Documento d) -> d.fechaRegistro, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(d -> d.id, Comparator.reverseOrder());
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Set<Long>> terminos = new TreeMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+
+    // Cambios confirmados durante una reconstrucción (id → documento, null si se borró);
+    // null fuera de una reconstrucción. Se lee y escribe con el lock de escritura
+    private Map<Long, Documento> cambiosDuranteCarga;
+
+    // Hasta terminar la primera carga los servicios siguen consultando la BD
+    private volatile boolean listo = false;
+
+    public boolean estaListo() {
+        return listo;
+    }
+
+    // ========== CARGA Y RECONSTRUCCIÓN ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+
+    @Scheduled(initialDelayString = "${hooked.busqueda.usuarios.reconstruir-ms:3600000}",
+            fixedDelayString = "${hooked.busqueda.usuarios.reconstruir-ms:3600000}")
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        List<Documento> cargados = new ArrayList<>();
+
+        // Desde acá, lo que se confirme mientras se carga se anota para aplicarlo tras el cambio
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteCarga = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int reaplicados;
+        try {
+            List<Usuario> lote;
+            long ultimoId = 0;
+            do {
+                lote = usuarioRepository.findLoteDesdeId(ultimoId, PageRequest.of(0, LOTE_CARGA));
+                lote.forEach(usuario -> cargados.add(Documento.de(usuario)));
+                if (!lote.isEmpty()) {
+                    ultimoId = lote.get(lote.size() - 1).getId();
+                }
+            } while (lote.size() == LOTE_CARGA);
+
+            lock.writeLock().lock();
+            try {
+                terminos.clear();
+                documentos.clear();
+                cargados.forEach(this::agregar);
+
+                // La carga pudo leer una fila antes de su cambio: gana el cambio confirmado
+                reaplicados = cambiosDuranteCarga.size();
+                cambiosDuranteCarga.forEach((usuarioId, documento) -> {
+                    quitar(usuarioId);
+                    if (documento != null) {
+                        agregar(documento);
+                    }
+                });
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteCarga = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("Índice de búsqueda de usuarios: {} usuarios ({} cambios durante la carga) en {} ms",
+                cargados.size(), reaplicados, System.currentTimeMillis() - inicio);
+    }
+
+    // ========== MANTENIMIENTO INCREMENTAL ==========
+
+    // Toma los valores ahora y los aplica solo si la transacción confirma
+    public void indexar(Usuario usuario) {
+        Documento documento = Documento.de(usuario);
+        TransactionUtils.despuesDelCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                quitar(documento.id);
+                agregar(documento);
+                anotarCambio(documento.id, documento);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void eliminar(Long usuarioId) {
+        TransactionUtils.despuesDelCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                quitar(usuarioId);
+                anotarCambio(usuarioId, null);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Con el lock de escritura tomado; null = usuario eliminado
+    private void anotarCambio(Long usuarioId, Documento documento) {
+        if (cambiosDuranteCarga != null) {
+            cambiosDuranteCarga.put(usuarioId, documento);
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Ids que coinciden con todas las palabras del término (cada palabra como
+     * prefijo en nombre, email, ubicación o tags), más recientes primero.
+     */
+    public List<Long> buscarEnTodo(String termino) {
+        return buscar(termino, NOMBRE, EMAIL, UBICACION, TAG);
+    }
+
+    // Solo nombre y email (búsqueda simple de /api/usuarios?buscar=)
+    public List<Long> buscarPorNombreOEmail(String termino) {
+        return buscar(termino, NOMBRE, EMAIL);
+    }
+
+    private List<Long> buscar(String termino, String... campos) {
+        List<String> palabras = tokenizar(termino);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Long> resultado = null;
+            for (String palabra : palabras) {
+                Set<Long> coincidencias = new HashSet<>();
+                for (String campo : campos) {
+                    String desde = campo + palabra;
+                    terminos.subMap(desde, true, desde + Character.MAX_VALUE, true)
+                            .values()
+                            .forEach(coincidencias::addAll);
+                }
+
+                if (resultado == null) {
+                    resultado = coincidencias;
+                } else {
+                    resultado.retainAll(coincidencias);
+                }
+                if (resultado.isEmpty()) {
+                    break;
+                }
+            }
+            return ordenar(resultado);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Llamar con el lock de lectura tomado
+    private List<Long> ordenar(Set<Long> ids) {
+        return ids.stream()
+                .map(documentos::get)
+                .filter(Objects::nonNull)
+                .sorted(POR_FECHA_REGISTRO)
+                .map(d -> d.id)
+                .toList();
+    }
+
+    // ========== ESTRUCTURA INTERNA (con el lock de escritura tomado) ==========
+
+    private void agregar(Documento documento) {
+        documentos.put(documento.id, documento);
+        for (String clave : documento.claves) {
+            terminos.computeIfAbsent(clave, k -> new HashSet<>()).add(documento.id);
+        }
+    }
+
+    private void quitar(Long usuarioId) {
+        Documento anterior = documentos.remove(usuarioId);
+        if (anterior == null) {
+            return;
+        }
+        for (String clave : anterior.claves) {
+            Set<Long> ids = terminos.get(clave);
+            if (ids != null) {
+                ids.remove(usuarioId);
+                if (ids.isEmpty()) {
+                    terminos.remove(clave);
+                }
+            }
+        }
+    }
+
+    // ========== NORMALIZACIÓN ==========
+
+    // Minúsculas y sin acentos: "Ñandú Río" → "nandu rio"
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return sinAcentos.toLowerCase(Locale.ROOT).trim();
+    }
+
+    static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalizar(texto).split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Snapshot inmutable de los campos buscables de un usuario
+    private static class Documento {
+        private final Long id;
+        private final LocalDateTime fechaRegistro;
+        private final Set<String> claves;
+
+        private Documento(Long id, LocalDateTime fechaRegistro, Set<String> claves) {
+            this.id = id;
+            this.fechaRegistro = fechaRegistro;
+            this.claves = claves;
+        }
+
+        static Documento de(Usuario usuario) {
+            Set<String> claves = new HashSet<>();
+            tokenizar(usuario.getNombre()).forEach(t -> claves.add(NOMBRE + t));
+
+            // Email por partes (juan, perez, gmail...): un email pegado entero se tokeniza
+            // igual en buscar() y coincide por todas sus partes
+            tokenizar(usuario.getEmail()).forEach(t -> claves.add(EMAIL + t));
+
+            tokenizar(usuario.getUbicacionPreferida()).forEach(t -> claves.add(UBICACION + t));
+
+            // getTags() sale de la columna CSV: no inicializa la colección lazy usuario_tags
+            usuario.getTags().forEach(tag -> tokenizar(tag).forEach(t -> claves.add(TAG + t)));
+
+            return new Documento(usuario.getId(), usuario.getFechaRegistro(), claves);
+        }
+    }
+}
@@ -5,13 +5,19 @@ import com.flaco.hooked.domain.request.CrearUsuarioRequest;
 import com.flaco.hooked.domain.response.PaginatedResponse;
 import com.flaco.hooked.domain.response.UsuarioResponse;
 import com.flaco.hooked.model.Usuario;
+import com.flaco.hooked.configuration.TransactionUtils;
 import com.flaco.hooked.domain.repository.UsuarioRepository;
 import com.flaco.hooked.domain.repository.PostRepository;
 import com.flaco.hooked.domain.repository.LikeRepository;
+import com.flaco.hooked.domain.repository.UsuarioStatsRepository;
+import com.flaco.hooked.model.UsuarioStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +29,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,6 +52,18 @@ public class UsuarioService {
     @Autowired
     private ImageStorageService imageStorageService;
 
+    @Autowired
+    private UsuarioSearchIndex usuarioSearchIndex;
+
+    @Autowired
+    private UsuarioStatsRepository usuarioStatsRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ActividadUsuarioService actividadUsuarioService;
+
     // fallback/referencia en caso de fallo del server
     private final String UPLOAD_DIR = "uploads/profiles/";
 
@@ -63,7 +84,11 @@ public class UsuarioService {
         usuario.setContrasena(passwordEncoder.encode(request.getContrasena()));
         // Los campos nuevos se inicializan automáticamente en el constructor
 
-        return usuarioRepository.save(usuario);
+        Usuario usuarioGuardado = usuarioRepository.save(usuario);
+        // Fila de contadores desde el alta: sin ella no aparece en los rankings hasta la reconciliación
+        usuarioStatsRepository.crearSiFalta(usuarioGuardado.getId());
+        usuarioSearchIndex.indexar(usuarioGuardado);
+        return usuarioGuardado;
     }
 
     public Usuario buscarPorEmail(String email) {
@@ -82,6 +107,11 @@ public class UsuarioService {
 
     public void eliminarUsuario(Long id) {
         usuarioRepository.deleteById(id);
+        usuarioSearchIndex.eliminar(id);
+        TransactionUtils.despuesDelCommit(() -> actividadUsuarioService.descartar(id));
+        // Sus access tokens llevan el id en los claims: dejan de aceptarse ya, no al expirar
+        // (la revocación se guarda en esta transacción y el cache se limpia tras el commit)
+        jwtService.revocarTokensDelUsuario(id);
     }
 
     // Obtener perfil completo por email (para usuario autenticado)
@@ -136,10 +166,11 @@ public class UsuarioService {
         // Actualizar nivel de pescador automáticamente
         actualizarNivelPescador(usuario);
 
-        // Actualizar timestamp de actividad
-        usuario.actualizarUltimaActividad();
+        // Actualizar timestamp de actividad (write-behind, no entra en este UPDATE)
+        actividadUsuarioService.registrarActividad(usuario.getId());
 
         Usuario usuarioActualizado = usuarioRepository.save(usuario);
+        usuarioSearchIndex.indexar(usuarioActualizado);
         return convertirAResponse(usuarioActualizado);
     }
 
@@ -155,9 +186,7 @@ public class UsuarioService {
                     termino.trim(), termino.trim());
         }
 
-        return usuarios.stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        return convertirListaAResponse(usuarios);
     }
 
     //Subir foto de perfil (Cloudinary)
@@ -187,8 +216,8 @@ public class UsuarioService {
 
             // Actualizar usuario con la nueva URL pública
             usuario.setFotoPerfil(nuevaUrlImagen);
-            usuario.actualizarUltimaActividad();
             usuarioRepository.save(usuario);
+            actividadUsuarioService.registrarActividad(usuario.getId());
 
             // Limpiar imagen anterior de Cloudinary
             if (urlImagenAnterior != null && urlImagenAnterior.contains("cloudinary.com")) {
@@ -209,8 +238,36 @@ public class UsuarioService {
 
     // MÉTODOS PRIVADOS DE UTILIDAD
 
-    // Convertir Usuario a UsuarioResponse con estadísticas calculadas
+    // Convertir Usuario a UsuarioResponse con las estadísticas de usuario_stats
     private UsuarioResponse convertirAResponse(Usuario usuario) {
+        return convertirAResponse(usuario, obtenerStats(usuario.getId()));
+    }
+
+    // Listas y páginas: una sola consulta a usuario_stats para todos los usuarios
+    private List<UsuarioResponse> convertirListaAResponse(List<Usuario> usuarios) {
+        if (usuarios.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UsuarioStats> statsPorUsuario = usuarioStatsRepository
+                .findAllById(usuarios.stream().map(Usuario::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(UsuarioStats::getUsuarioId, Function.identity()));
+
+        return usuarios.stream()
+                .map(usuario -> convertirAResponse(usuario,
+                        statsPorUsuario.getOrDefault(usuario.getId(), UsuarioStats.vacio(usuario.getId()))))
+                .collect(Collectors.toList());
+    }
+
+    private Slice<UsuarioResponse> convertirPaginaAResponse(Slice<Usuario> pageUsuarios) {
+        List<UsuarioResponse> contenido = convertirListaAResponse(pageUsuarios.getContent());
+        if (pageUsuarios instanceof Page<Usuario> page) {
+            return new PageImpl<>(contenido, page.getPageable(), page.getTotalElements());
+        }
+        return new SliceImpl<>(contenido, pageUsuarios.getPageable(), pageUsuarios.hasNext());
+    }
+
+    private UsuarioResponse convertirAResponse(Usuario usuario, UsuarioStats stats) {
         UsuarioResponse response = new UsuarioResponse();
 
         // Campos básicos
@@ -225,18 +282,23 @@ public class UsuarioService {
         response.setTags(usuario.getTags());
         response.setUbicacionPreferida(usuario.getUbicacionPreferida());
 
-        // Estadísticas calculadas en tiempo real
-        response.setTotalPosts(postRepository.countByUsuarioId(usuario.getId()));
-        response.setTotalLikes(calcularTotalLikes(usuario.getId()));
-        response.setTotalComentarios(0); // Preparado para futuro
+        // Estadísticas mantenidas en usuario_stats (sin recorrer posts)
+        response.setTotalPosts(stats.getTotalPosts());
+        response.setTotalLikes((int) Math.min(stats.getTotalLikesRecibidos(), Integer.MAX_VALUE));
+        response.setTotalComentarios(stats.getTotalComentarios());
 
         // Campos de pescador
-        response.setUltimaActividad(usuario.getUltimaActividad());
+        response.setUltimaActividad(actividadUsuarioService.ultimaActividad(usuario));
         response.setNivelPescador(usuario.getNivelPescador());
 
         return response;
     }
 
+    private UsuarioStats obtenerStats(Long usuarioId) {
+        return usuarioStatsRepository.findById(usuarioId)
+                .orElseGet(() -> UsuarioStats.vacio(usuarioId));
+    }
+
     //Validar que email sea único (excluyendo usuario actual)
 
     private void validarEmailUnico(String email, Long idExcluir) {
@@ -259,18 +321,10 @@ public class UsuarioService {
         usuario.setContrasena(passwordEncoder.encode(nuevaContrasena));
     }
 
-    //Calcular total de likes recibidos por el usuario
-    private Integer calcularTotalLikes(Long usuarioId) {
-        return postRepository.findByUsuarioId(usuarioId)
-                .stream()
-                .mapToInt(post -> post.getLikeCount() != null ? post.getLikeCount() : 0)
-                .sum();
-    }
-
-
     private void actualizarNivelPescador(Usuario usuario) {
-        int totalPosts = postRepository.countByUsuarioId(usuario.getId());
-        int totalLikes = calcularTotalLikes(usuario.getId());
+        UsuarioStats stats = obtenerStats(usuario.getId());
+        int totalPosts = stats.getTotalPosts();
+        long totalLikes = stats.getTotalLikesRecibidos();
 
         String nuevoNivel;
         if (totalPosts >= 500 || totalLikes >= 1000) {
@@ -309,17 +363,19 @@ public class UsuarioService {
     }
 
     // Obtener todos los usuarios paginados (ordenados por fecha de registro)
-    public PaginatedResponse<UsuarioResponse> obtenerUsuariosPaginados(int pagina, int tamano) {
+    public PaginatedResponse<UsuarioResponse> obtenerUsuariosPaginados(int pagina, int tamano, boolean conTotal) {
         // Validaciones inteligentes (límite máximo 50 para usuarios)
         if (pagina < 0) pagina = 0;
         if (tamano <= 0) tamano = 10;
         if (tamano > 50) tamano = 50; // Límite máximo para usuarios
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Usuario> pageUsuarios = usuarioRepository.findAllByOrderByFechaRegistroDesc(pageable);
+        Slice<Long> ids = conTotal
+                ? usuarioRepository.findIdsOrderByFechaRegistroDesc(pageable)
+                : usuarioRepository.findIdsSliceOrderByFechaRegistroDesc(pageable);
 
-        // Convertir a UsuarioResponse usando tu método existente
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        // Dos fases: página de ids y luego los usuarios de esa página
+        Slice<UsuarioResponse> pageResponse = convertirPaginaDeIdsAResponse(ids);
 
         return new PaginatedResponse<>(pageResponse);
     }
@@ -332,19 +388,20 @@ public class UsuarioService {
         if (tamano > 50) tamano = 50;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Usuario> pageUsuarios;
+        Page<Long> ids;
 
         if (termino == null || termino.trim().isEmpty()) {
             // Si no hay término, obtener todos
-            pageUsuarios = usuarioRepository.findAllByOrderByFechaRegistroDesc(pageable);
+            ids = usuarioRepository.findIdsOrderByFechaRegistroDesc(pageable);
+        } else if (usuarioSearchIndex.estaListo()) {
+            // Índice en memoria: sin escanear usuarios con LIKE '%x%'
+            return paginarDesdeIndice(usuarioSearchIndex.buscarPorNombreOEmail(termino), pageable);
         } else {
             // Buscar por nombre o email (paginado)
-            String terminoLimpio = termino.trim();
-            pageUsuarios = usuarioRepository.findByNombreContainingIgnoreCaseOrEmailContainingIgnoreCaseOrderByFechaRegistroDesc(
-                    terminoLimpio, terminoLimpio, pageable);
+            ids = usuarioRepository.buscarIdsPorNombreOEmail(termino.trim(), pageable);
         }
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaDeIdsAResponse(ids);
         return new PaginatedResponse<>(pageResponse);
     }
 
@@ -359,10 +416,11 @@ public class UsuarioService {
         if (tamano <= 0) tamano = 10;
         if (tamano > 50) tamano = 50;
 
+        // Tag exacto sobre usuario_tags: ya no coincide "mosca" con "moscas"
         Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Usuario> pageUsuarios = usuarioRepository.findByTagContaining(tag.trim(), pageable);
+        Page<Usuario> pageUsuarios = usuarioRepository.findByTag(Usuario.normalizarTag(tag), pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
 
@@ -377,11 +435,14 @@ public class UsuarioService {
         // Calcular fecha límite
         LocalDateTime fechaLimite = LocalDateTime.now().minusDays(diasActividad);
 
+        // Filtra y ordena por ultima_actividad en BD: lo pendiente entra con el próximo flush
+        // (hooked.actividad.flush-interval-ms); la fecha mostrada ya mezcla lo pendiente
+
         Pageable pageable = PageRequest.of(pagina, tamano);
         Page<Usuario> pageUsuarios = usuarioRepository.findByUltimaActividadAfterOrderByUltimaActividadDesc(
                 fechaLimite, pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
 
@@ -405,7 +466,7 @@ public class UsuarioService {
         Pageable pageable = PageRequest.of(pagina, tamano);
         Page<Usuario> pageUsuarios = usuarioRepository.findByNivelPescadorOrderByFechaRegistroDesc(nivelLimpio, pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
 
@@ -424,22 +485,39 @@ public class UsuarioService {
         Page<Usuario> pageUsuarios = usuarioRepository.findByUbicacionPreferidaContainingIgnoreCaseOrderByFechaRegistroDesc(
                 ubicacion.trim(), pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
 
+    // ========== RANKINGS ==========
+    // Página de ids leída de un índice (usuario_stats o racha_actual, V9) y luego los
+    // usuarios de esa página: no depende del tamaño de las tablas, así que tampoco hay
+    // COUNT (siempre Slice, esUltimaPagina exacto). Los contadores se mantienen con
+    // incrementos y ReconciliacionStatsService los recalcula a diario.
+
     // Usuarios más activos (con más posts) paginados
     public PaginatedResponse<UsuarioResponse> obtenerUsuariosMasActivosPaginados(int pagina, int tamano) {
-        // Validaciones
+        Slice<Long> ids = usuarioStatsRepository.rankingPorPosts(paginaDeRanking(pagina, tamano));
+        return new PaginatedResponse<>(convertirPaginaDeIdsAResponse(ids));
+    }
+
+    // Usuarios con más likes recibidos
+    public PaginatedResponse<UsuarioResponse> obtenerUsuariosConMasLikesPaginados(int pagina, int tamano) {
+        Slice<Long> ids = usuarioStatsRepository.rankingPorLikesRecibidos(paginaDeRanking(pagina, tamano));
+        return new PaginatedResponse<>(convertirPaginaDeIdsAResponse(ids));
+    }
+
+    // Mejores rachas vigentes (solo racha_actual > 0)
+    public PaginatedResponse<UsuarioResponse> obtenerMejoresRachasPaginadas(int pagina, int tamano) {
+        Slice<Long> ids = usuarioRepository.rankingPorRacha(paginaDeRanking(pagina, tamano));
+        return new PaginatedResponse<>(convertirPaginaDeIdsAResponse(ids));
+    }
+
+    private Pageable paginaDeRanking(int pagina, int tamano) {
         if (pagina < 0) pagina = 0;
         if (tamano <= 0) tamano = 10;
         if (tamano > 50) tamano = 50;
-
-        Pageable pageable = PageRequest.of(pagina, tamano);
-        Page<Usuario> pageUsuarios = usuarioRepository.findUsuariosMasActivos(pageable);
-
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
-        return new PaginatedResponse<>(pageResponse);
+        return PageRequest.of(pagina, tamano);
     }
 
     // Usuarios nuevos (registrados recientemente) paginados
@@ -457,7 +535,7 @@ public class UsuarioService {
         Page<Usuario> pageUsuarios = usuarioRepository.findByFechaRegistroAfterOrderByFechaRegistroDesc(
                 fechaLimite, pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
 
@@ -473,9 +551,44 @@ public class UsuarioService {
         if (tamano > 50) tamano = 50;
 
         Pageable pageable = PageRequest.of(pagina, tamano);
+        if (usuarioSearchIndex.estaListo()) {
+            return paginarDesdeIndice(usuarioSearchIndex.buscarEnTodo(termino), pageable);
+        }
         Page<Usuario> pageUsuarios = usuarioRepository.busquedaAvanzada(termino.trim(), pageable);
 
-        Page<UsuarioResponse> pageResponse = pageUsuarios.map(this::convertirAResponse);
+        Slice<UsuarioResponse> pageResponse = convertirPaginaAResponse(pageUsuarios);
         return new PaginatedResponse<>(pageResponse);
     }
+
+    // Página de usuarios a partir de los ids (ya ordenados) que devuelve el índice de búsqueda
+    private PaginatedResponse<UsuarioResponse> paginarDesdeIndice(List<Long> ids, Pageable pageable) {
+        int desde = (int) Math.min(pageable.getOffset(), ids.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), ids.size());
+        List<UsuarioResponse> contenido = convertirListaAResponse(cargarEnOrden(ids.subList(desde, hasta)));
+
+        return new PaginatedResponse<>(new PageImpl<>(contenido, pageable, ids.size()));
+    }
+
+    // Segunda fase de los paginados: usuarios de la página de ids, conservando el total si lo hay
+    private Slice<UsuarioResponse> convertirPaginaDeIdsAResponse(Slice<Long> ids) {
+        List<UsuarioResponse> contenido = convertirListaAResponse(cargarEnOrden(ids.getContent()));
+        if (ids instanceof Page<Long> page) {
+            return new PageImpl<>(contenido, page.getPageable(), page.getTotalElements());
+        }
+        return new SliceImpl<>(contenido, ids.getPageable(), ids.hasNext());
+    }
+
+    // Un solo SELECT ... WHERE id IN (...) y el orden de la página de ids
+    private List<Usuario> cargarEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Usuario> porId = usuarioRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
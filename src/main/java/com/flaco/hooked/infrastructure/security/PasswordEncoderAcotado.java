@@ -0,0 +1,119 @@
+package com.flaco.hooked.infrastructure.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que ejecuta BCrypt en un pool propio de tamaño fijo y cola acotada.
+ * Login (AuthenticationManager), registro y cambio de contraseña pasan por aquí,
+ * así un pico de logins ocupa como mucho "hilos" núcleos de CPU en hashing.
+ *
+ * Con la cola llena (o si la espera supera el máximo) se lanza
+ * ServicioSaturadoException al momento → 503 con Retry-After, en lugar de dejar
+ * el hilo de Tomcat esperando detrás de cientos de hashes.
+ */
+public class PasswordEncoderAcotado implements PasswordEncoder, AutoCloseable {
+
+    private static final long REINTENTAR_EN_SEGUNDOS = 2;
+
+    private final PasswordEncoder delegado;
+    private final ThreadPoolExecutor executor;
+    private final long esperaMaximaMs;
+
+    private final Timer tiempoEncode;
+    private final Timer tiempoMatches;
+    private final Counter rechazos;
+
+    public PasswordEncoderAcotado(PasswordEncoder delegado, int hilos, int capacidadCola,
+                                  long esperaMaximaMs, MeterRegistry meterRegistry) {
+        this.delegado = delegado;
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                hilos, hilos,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "password-hash-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.tiempoEncode = Timer.builder("hooked.password.hash")
+                .tag("operacion", "encode")
+                .description("Duración del hash BCrypt (sin contar la cola)")
+                .register(meterRegistry);
+        this.tiempoMatches = Timer.builder("hooked.password.hash")
+                .tag("operacion", "matches")
+                .description("Duración de la verificación BCrypt (sin contar la cola)")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("hooked.password.hash.rechazos")
+                .description("Hashes rechazados por pool saturado (503)")
+                .register(meterRegistry);
+        Gauge.builder("hooked.password.hash.cola", executor, e -> e.getQueue().size())
+                .description("Hashes esperando un hilo")
+                .register(meterRegistry);
+        Gauge.builder("hooked.password.hash.activos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashes en ejecución")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> tiempoEncode.record(() -> delegado.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Boolean coincide = ejecutar(() -> tiempoMatches.record(() -> delegado.matches(rawPassword, encodedPassword)));
+        return Boolean.TRUE.equals(coincide);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ServicioSaturadoException(
+                    "Servicio de autenticación saturado, intenta de nuevo en unos segundos", REINTENTAR_EN_SEGUNDOS);
+        }
+
+        try {
+            return futuro.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            rechazos.increment();
+            throw new ServicioSaturadoException(
+                    "Servicio de autenticación saturado, intenta de nuevo en unos segundos", REINTENTAR_EN_SEGUNDOS);
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hash de contraseña interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+
+    // Spring lo llama al cerrar el contexto (método close inferido del @Bean)
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package com.flaco.hooked.infrastructure.security;
+
+/**
+ * El recurso acotado (p. ej. el pool de hashing de contraseñas) no admite más
+ * trabajo ahora mismo. GlobalExceptionHandler responde 503 con Retry-After.
+ */
+public class ServicioSaturadoException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public ServicioSaturadoException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
@@ -0,0 +1,237 @@
+package com.flaco.hooked.infrastructure.security;
+
+import com.flaco.hooked.configuration.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de access tokens ya verificados: SHA-256 del token → UsuarioPrincipal.
+ * Evita repetir la verificación HMAC en cada petición del mismo token.
+ *
+ * Cada entrada vive como máximo hasta el "exp" del token (y nunca más que el TTL
+ * configurado). Con el cache lleno se descartan primero las vencidas y luego
+ * entradas cualquiera. revocarUsuario() (logout-all) saca sus entradas y rechaza
+ * los tokens de ese usuario emitidos antes de la revocación.
+ *
+ * La revocación se guarda en tokens_revocados: cada instancia la carga al arrancar
+ * y la sincroniza cada hooked.jwt.revocaciones.sincronizar-ms, sin consultar la BD
+ * por petición. En otra instancia un token revocado se acepta como mucho durante
+ * ese intervalo; en la que atendió el logout-all, nunca.
+ */
+@Component
+public class TokenVerificadoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVerificadoCache.class);
+
+    private static final String SQL_GUARDAR_REVOCACION =
+            "INSERT INTO tokens_revocados (usuario_id, revocado_desde) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE revocado_desde = GREATEST(revocado_desde, VALUES(revocado_desde))";
+
+    private static final String SQL_LEER_REVOCACIONES =
+            "SELECT usuario_id, revocado_desde FROM tokens_revocados WHERE revocado_desde >= ?";
+
+    private static final String SQL_BORRAR_CADUCADAS =
+            "DELETE FROM tokens_revocados WHERE revocado_desde < ?";
+
+    @Value("${hooked.jwt.cache.max-entradas:10000}")
+    private int maxEntradas;
+
+    @Value("${hooked.jwt.cache.ttl-ms:900000}")
+    private long ttlMs;
+
+    // Vida del access token: pasado ese tiempo una revocación ya no afecta a nadie
+    @Value("${hooked.jwt.expiration:900000}")
+    private long jwtExpirationMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // usuarioId → epoch en segundos (misma precisión que el claim "iat")
+    private final Map<Long, Long> revocadoDesde = new ConcurrentHashMap<>();
+
+    // Mayor revocado_desde leído de la BD: la sincronización sigue desde ahí
+    private volatile long ultimaSincronizada;
+
+    private Counter aciertos;
+    private Counter fallos;
+    private Counter descartes;
+
+    @PostConstruct
+    void registrarMetricas() {
+        aciertos = Counter.builder("hooked.jwt.cache")
+                .tag("resultado", "hit")
+                .description("Tokens resueltos desde el cache sin verificar la firma")
+                .register(meterRegistry);
+        fallos = Counter.builder("hooked.jwt.cache")
+                .tag("resultado", "miss")
+                .description("Tokens que tuvieron que verificarse")
+                .register(meterRegistry);
+        descartes = Counter.builder("hooked.jwt.cache.descartes")
+                .description("Entradas sacadas del cache por tamaño")
+                .register(meterRegistry);
+        Gauge.builder("hooked.jwt.cache.tamano", entradas, Map::size)
+                .description("Tokens verificados en cache")
+                .register(meterRegistry);
+    }
+
+    // ========== CONSULTA ==========
+
+    /**
+     * @return el principal si el token está en cache y no venció, null si hay que verificarlo
+     */
+    public UsuarioPrincipal obtener(String token) {
+        String clave = digest(token);
+        Entrada entrada = entradas.get(clave);
+
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        // Revocado: también cubre una verificación en curso que se guardó justo después del logout-all
+        if (entrada.expiraEn <= System.currentTimeMillis()
+                || estaRevocado(entrada.principal.getId(), entrada.emitidoEn)) {
+            entradas.remove(clave, entrada);
+            fallos.increment();
+            return null;
+        }
+
+        aciertos.increment();
+        return entrada.principal;
+    }
+
+    public void guardar(String token, UsuarioPrincipal principal, Instant emitidoEn, Instant expiraEn) {
+        long limite = System.currentTimeMillis() + ttlMs;
+        long expira = expiraEn != null ? Math.min(expiraEn.toEpochMilli(), limite) : limite;
+        if (expira <= System.currentTimeMillis()) {
+            return;
+        }
+
+        if (entradas.size() >= maxEntradas) {
+            liberarEspacio();
+        }
+        entradas.put(digest(token), new Entrada(principal, emitidoEn, expira));
+    }
+
+    // ========== REVOCACIÓN ==========
+
+    /**
+     * Marca la revocación en tokens_revocados (dentro de la transacción en curso, si
+     * hay) y, tras el commit, saca del cache los tokens del usuario: los emitidos
+     * hasta este segundo dejan de aceptarse aunque su firma siga siendo válida.
+     */
+    public void revocarUsuario(Long usuarioId) {
+        if (usuarioId == null) return;
+
+        // Se compara con <: un token emitido en este mismo segundo (login inmediato) sigue valiendo
+        long desde = Instant.now().getEpochSecond();
+        jdbcTemplate.update(SQL_GUARDAR_REVOCACION, usuarioId, desde);
+        TransactionUtils.despuesDelCommit(() -> aplicarRevocacion(usuarioId, desde));
+    }
+
+    public boolean estaRevocado(Long usuarioId, Instant emitidoEn) {
+        if (usuarioId == null) return false;
+
+        Long desde = revocadoDesde.get(usuarioId);
+        return desde != null && (emitidoEn == null || emitidoEn.getEpochSecond() < desde);
+    }
+
+    // Revocaciones hechas por otras instancias (o antes de un reinicio)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${hooked.jwt.revocaciones.sincronizar-ms:5000}",
+            fixedDelayString = "${hooked.jwt.revocaciones.sincronizar-ms:5000}")
+    public synchronized void sincronizarRevocaciones() {
+        // >= : una revocación escrita en el mismo segundo que la última leída también entra
+        long desde = Math.max(ultimaSincronizada, caducidadRevocaciones());
+        try {
+            jdbcTemplate.query(SQL_LEER_REVOCACIONES, rs -> {
+                long revocado = rs.getLong("revocado_desde");
+                aplicarRevocacion(rs.getLong("usuario_id"), revocado);
+                ultimaSincronizada = Math.max(ultimaSincronizada, revocado);
+            }, desde);
+        } catch (Exception e) {
+            logger.error("Error sincronizando revocaciones de access tokens; se reintentará", e);
+        }
+    }
+
+    private void aplicarRevocacion(Long usuarioId, long desde) {
+        Long previo = revocadoDesde.get(usuarioId);
+        if (previo != null && previo >= desde) {
+            return; // ya aplicada (la sincronización relee la última)
+        }
+        revocadoDesde.merge(usuarioId, desde, Math::max);
+        entradas.values().removeIf(e -> usuarioId.equals(e.principal.getId()));
+    }
+
+    // ========== LIMPIEZA ==========
+
+    @Scheduled(fixedDelayString = "${hooked.jwt.cache.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora);
+
+        // Pasada la vida del access token una revocación ya no rechaza nada
+        long caducidad = caducidadRevocaciones();
+        revocadoDesde.values().removeIf(desde -> desde < caducidad);
+        try {
+            jdbcTemplate.update(SQL_BORRAR_CADUCADAS, caducidad);
+        } catch (Exception e) {
+            logger.warn("No se pudieron borrar las revocaciones caducadas: {}", e.getMessage());
+        }
+    }
+
+    private long caducidadRevocaciones() {
+        return Instant.now().getEpochSecond() - jwtExpirationMs / 1000;
+    }
+
+    private void liberarEspacio() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(e -> e.expiraEn <= ahora);
+
+        // Sigue lleno: se descarta una décima parte (orden del mapa, sin seguir accesos)
+        int aDescartar = entradas.size() - maxEntradas + Math.max(1, maxEntradas / 10);
+        Iterator<String> it = entradas.keySet().iterator();
+        while (aDescartar-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            descartes.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private record Entrada(UsuarioPrincipal principal, Instant emitidoEn, long expiraEn) {
+    }
+}
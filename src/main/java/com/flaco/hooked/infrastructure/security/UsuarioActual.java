@@ -0,0 +1,20 @@
+package com.flaco.hooked.infrastructure.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Inyecta el usuario autenticado en un parámetro de controller, resuelto una
+ * sola vez por petición (UsuarioActualService). Tipos admitidos:
+ * Long (id, sin consultar la BD) o Usuario.
+ *
+ * Con requerido = false el parámetro llega null en peticiones anónimas.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UsuarioActual {
+
+    boolean requerido() default true;
+}
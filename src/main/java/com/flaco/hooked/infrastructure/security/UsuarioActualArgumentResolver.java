@@ -0,0 +1,39 @@
+package com.flaco.hooked.infrastructure.security;
+
+import com.flaco.hooked.domain.service.UsuarioActualService;
+import com.flaco.hooked.model.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resuelve los parámetros anotados con @UsuarioActual (Long o Usuario).
+ */
+@Component
+public class UsuarioActualArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Autowired
+    private UsuarioActualService usuarioActualService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> tipo = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(UsuarioActual.class)
+                && (Long.class.equals(tipo) || Usuario.class.equals(tipo));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        boolean requerido = parameter.getParameterAnnotation(UsuarioActual.class).requerido();
+
+        if (Usuario.class.equals(parameter.getParameterType())) {
+            return requerido ? usuarioActualService.obtenerUsuario() : usuarioActualService.obtenerUsuarioOpcional();
+        }
+        return requerido ? usuarioActualService.obtenerId() : usuarioActualService.obtenerIdOpcional();
+    }
+}
@@ -0,0 +1,58 @@
+package com.flaco.hooked.infrastructure.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Usuario autenticado construido solo con los claims del JWT ya verificado
+ * (id, email, nombre, roles). El filtro no consulta la BD; quien necesite la
+ * entidad Usuario la carga por id (getReferenceById) en ese punto.
+ */
+public class UsuarioPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String nombre;
+    private final List<GrantedAuthority> authorities;
+
+    public UsuarioPrincipal(Long id, String email, String nombre, List<String> roles) {
+        this.id = id;
+        this.email = email;
+        this.nombre = nombre;
+        this.authorities = roles.stream()
+                .map(rol -> (GrantedAuthority) new SimpleGrantedAuthority(rol))
+                .toList();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    // Sin contraseña: este principal nunca se usa para autenticar con credenciales
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "likes",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"usuario_id", "post_id"}))
+        uniqueConstraints = @UniqueConstraint(name = "uk_likes_usuario_post", columnNames = {"usuario_id", "post_id"}))
 public class Like {
 
     @Id
@@ -2,6 +2,7 @@ package com.flaco.hooked.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -23,11 +24,17 @@ import java.util.List;
 
         // INDICE PARA BÚSQUEDAS
         @Index(name = "idx_post_titulo", columnList = "titulo"),
+        // FULLTEXT ft_post_titulo_contenido (titulo, contenido): creado en V3,
+        // JPA no puede declarar índices FULLTEXT
+        // idx_post_hot_score (hot_score DESC, id DESC): creado en V8, hot_score no se mapea
 
         // INDICES PARA ESTADÍSTICAS
         @Index(name = "idx_post_usuario_stats", columnList = "usuario_id"),
         @Index(name = "idx_post_categoria_stats", columnList = "categoria_id")
 })
+// Solo columnas modificadas: like_count se mantiene con UPDATE atómicos y un
+// save() del post (p.ej. editar el título) no debe pisarlo con un valor viejo
+@DynamicUpdate
 public class Post {
 
     @Id
@@ -2,15 +2,19 @@ package com.flaco.hooked.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDateTime;
+import java.text.Normalizer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Entity
 @Table(name = "usuarios", indexes = {
@@ -20,8 +24,7 @@ import java.util.List;
         // Indices para busqueda avanzada - Multicamp
         @Index(name = "idx_usuario_nombre", columnList = "nombre"),
         @Index(name = "idx_usuario_ubicacion", columnList = "ubicacion_preferida"),
-        //Pendiente de agregar un index para los tags
-        // este está roto -- >  @Index(name = "idx_usuario_tags", columnList = "tags"),
+        // Tags: índice idx_usuario_tags_tag (tag, usuario_id) en la tabla usuario_tags (V4)
         @Index(name = "idx_usuario_nivel", columnList = "nivel_pescador"),
 
         //Ordenamiento y filtros por fecha
@@ -34,8 +37,14 @@ import java.util.List;
         @Index(name = "idx_usuario_actividad_fecha", columnList = "ultima_actividad, fecha_registro DESC"),
 
         // Indice para usuarios más activos (optimiza el GROUP BY)
-        @Index(name = "idx_usuario_posts_count", columnList = "id, fecha_registro DESC")
+        @Index(name = "idx_usuario_posts_count", columnList = "id, fecha_registro DESC"),
+
+        // Ranking de rachas (V9); las rachas rotas las pone en 0 ReconciliacionStatsService
+        @Index(name = "idx_usuario_racha", columnList = "racha_actual DESC, id DESC")
 })
+// Solo columnas modificadas: ultimo_login, racha y ultima_actividad los escribe
+// ActividadUsuarioService por lotes y un save() del perfil no debe pisarlos
+@DynamicUpdate
 public class Usuario implements UserDetails {
 
     @Id
@@ -70,9 +79,21 @@ public class Usuario implements UserDetails {
     @Column(name = "ubicacion_preferida", length = 100)
     private String ubicacionPreferida;
 
+    // Copia CSV de los tags tal como los escribió el usuario (para mostrarlos sin join)
     @Column(name = "tags", length = 1000)
     private String tagsString;
 
+    // Tags normalizados (minúsculas, sin acentos) para búsquedas exactas indexadas
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "usuario_tags", joinColumns = @JoinColumn(name = "usuario_id"))
+    @Column(name = "tag", length = 100, nullable = false)
+    @JsonIgnore
+    private Set<String> tagsNormalizados = new HashSet<>();
+
+    // Lista parseada de tagsString (se invalida al cambiar los tags)
+    @Transient
+    private List<String> tagsCache;
+
     // ESTADISTICA
     @Column(name = "fecha_registro")
     private LocalDateTime fechaRegistro;
@@ -222,10 +243,12 @@ public class Usuario implements UserDetails {
 
     // 🎯 MÉTODOS HELPER PARA TAGS (la magia aquí)
     public List<String> getTags() {
-        if (tagsString == null || tagsString.trim().isEmpty()) {
-            return new ArrayList<>();
+        if (tagsCache == null) {
+            tagsCache = (tagsString == null || tagsString.trim().isEmpty())
+                    ? List.of()
+                    : List.of(tagsString.split(","));
         }
-        return Arrays.asList(tagsString.split(","));
+        return tagsCache;
     }
 
     public void setTags(List<String> tags) {
@@ -239,7 +262,35 @@ public class Usuario implements UserDetails {
                             .filter(tag -> !tag.isEmpty())
                             .toArray(String[]::new)
             );
+            if (this.tagsString.isEmpty()) {
+                this.tagsString = null;
+            }
         }
+        this.tagsCache = null;
+
+        // Mantener usuario_tags en sincronía (el Set descarta duplicados normalizados)
+        Set<String> nuevos = new HashSet<>();
+        getTags().stream()
+                .map(Usuario::normalizarTag)
+                .filter(tag -> !tag.isEmpty())
+                .forEach(nuevos::add);
+        tagsNormalizados.retainAll(nuevos);
+        tagsNormalizados.addAll(nuevos);
+    }
+
+    // "  Pesca con MÓSCA " → "pesca con mosca" (máx. 100 caracteres, como la columna)
+    public static String normalizarTag(String tag) {
+        if (tag == null) {
+            return "";
+        }
+        String normalizado = Normalizer.normalize(tag.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        return normalizado.length() > 100 ? normalizado.substring(0, 100) : normalizado;
+    }
+
+    public Set<String> getTagsNormalizados() {
+        return tagsNormalizados;
     }
 
     public void addPost(Post post) {
@@ -259,6 +310,7 @@ public class Usuario implements UserDetails {
 
     public void setTagsString(String tagsString) {
         this.tagsString = tagsString;
+        this.tagsCache = null;
     }
 
     // MÉTODOS DE EXTRA
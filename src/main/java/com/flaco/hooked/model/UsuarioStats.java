@@ -0,0 +1,42 @@
+package com.flaco.hooked.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+// Solo lectura desde JPA: los contadores se mantienen con los upserts de UsuarioStatsRepository
+@Entity
+@Immutable
+@Table(name = "usuario_stats", indexes = {
+        // Rankings /mas-activos y /mas-likes (V9)
+        @Index(name = "idx_usuario_stats_posts", columnList = "total_posts DESC, usuario_id DESC"),
+        @Index(name = "idx_usuario_stats_likes", columnList = "total_likes_recibidos DESC, usuario_id DESC")
+})
+public class UsuarioStats {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "total_posts", nullable = false)
+    private Integer totalPosts = 0;
+
+    @Column(name = "total_likes_recibidos", nullable = false)
+    private Long totalLikesRecibidos = 0L;
+
+    @Column(name = "total_comentarios", nullable = false)
+    private Integer totalComentarios = 0;
+
+    public UsuarioStats() {}
+
+    // Usuario sin fila todavía (nunca publicó ni comentó)
+    public static UsuarioStats vacio(Long usuarioId) {
+        UsuarioStats stats = new UsuarioStats();
+        stats.usuarioId = usuarioId;
+        return stats;
+    }
+
+    public Long getUsuarioId() { return usuarioId; }
+    public Integer getTotalPosts() { return totalPosts; }
+    public Long getTotalLikesRecibidos() { return totalLikesRecibidos; }
+    public Integer getTotalComentarios() { return totalComentarios; }
+}
@@ -0,0 +1,8 @@
+-- Revocación de access tokens por usuario (logout-all, baja de usuario): se rechazan los
+-- emitidos antes de revocado_desde (epoch en segundos, misma precisión que el claim "iat").
+-- Todas las instancias la leen de aquí; sin FK, la fila sobrevive al borrado del usuario
+CREATE TABLE IF NOT EXISTS tokens_revocados (
+    usuario_id BIGINT NOT NULL PRIMARY KEY,
+    revocado_desde BIGINT NOT NULL,
+    INDEX idx_tokens_revocados_desde (revocado_desde)
+);
@@ -0,0 +1,47 @@
+-- El toggle de like (INSERT IGNORE) decide si da o quita el like con la UNIQUE
+-- (usuario_id, post_id): sin ella cada toggle insertaría un like repetido.
+-- V1 no crea likes, así que la tabla se crea si falta. En esquemas creados con
+-- ddl-auto=update la clave ya puede existir con el nombre que generó Hibernate:
+-- se busca por columnas, no por nombre.
+
+CREATE TABLE IF NOT EXISTS likes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    fecha_like DATETIME(6) NULL,
+    CONSTRAINT fk_likes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT fk_likes_post FOREIGN KEY (post_id) REFERENCES posts(id)
+);
+
+-- Likes repetidos (queda el más antiguo) y like_count recalculado en esos posts
+CREATE TEMPORARY TABLE likes_duplicados AS
+SELECT DISTINCT post_id FROM likes GROUP BY usuario_id, post_id HAVING COUNT(*) > 1;
+
+DELETE l FROM likes l
+JOIN likes k ON k.usuario_id = l.usuario_id AND k.post_id = l.post_id AND k.id < l.id;
+
+UPDATE posts p
+JOIN likes_duplicados d ON d.post_id = p.id
+SET p.like_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id);
+
+DROP TEMPORARY TABLE likes_duplicados;
+
+DROP PROCEDURE IF EXISTS hooked_agregar_unique_likes;
+
+DELIMITER //
+
+CREATE PROCEDURE hooked_agregar_unique_likes()
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = 'likes' AND non_unique = 0
+                   GROUP BY index_name
+                   HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index SEPARATOR ',') = 'usuario_id,post_id') THEN
+        ALTER TABLE likes ADD CONSTRAINT uk_likes_usuario_post UNIQUE (usuario_id, post_id);
+    END IF;
+END //
+
+DELIMITER ;
+
+CALL hooked_agregar_unique_likes();
+
+DROP PROCEDURE hooked_agregar_unique_likes;
@@ -0,0 +1,3 @@
+-- Búsqueda de posts con MATCH ... AGAINST en lugar de LIKE '%term%'
+ALTER TABLE posts
+ADD FULLTEXT INDEX ft_post_titulo_contenido (titulo, contenido);
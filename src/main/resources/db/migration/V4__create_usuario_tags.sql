@@ -0,0 +1,28 @@
+-- Tags de usuario normalizados (antes solo CSV en usuarios.tags)
+-- El índice (tag, usuario_id) resuelve /api/usuarios/especialidad/{tag} con un range scan
+CREATE TABLE IF NOT EXISTS usuario_tags (
+    usuario_id BIGINT NOT NULL,
+    tag VARCHAR(100) COLLATE utf8mb4_0900_ai_ci NOT NULL,
+    PRIMARY KEY (usuario_id, tag),
+    INDEX idx_usuario_tags_tag (tag, usuario_id),
+    CONSTRAINT fk_usuario_tags_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE
+) DEFAULT CHARSET = utf8mb4;
+
+-- Backfill desde el CSV de usuarios.tags (solo si la columna existe en este esquema).
+-- Se parte por comas con una secuencia 1..100; la collation _ai_ci ya iguala
+-- mayúsculas y acentos, INSERT IGNORE descarta los repetidos.
+SET @backfill = (
+    SELECT IF(COUNT(*) = 0, 'SELECT 1',
+        'INSERT IGNORE INTO usuario_tags (usuario_id, tag)
+         WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 100)
+         SELECT u.id, LEFT(LOWER(TRIM(SUBSTRING_INDEX(SUBSTRING_INDEX(u.tags, '','', seq.n), '','', -1))), 100)
+         FROM usuarios u
+         JOIN seq ON seq.n <= 1 + LENGTH(u.tags) - LENGTH(REPLACE(u.tags, '','', ''''))
+         WHERE u.tags IS NOT NULL
+           AND TRIM(SUBSTRING_INDEX(SUBSTRING_INDEX(u.tags, '','', seq.n), '','', -1)) <> ''''')
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE() AND table_name = 'usuarios' AND column_name = 'tags'
+);
+PREPARE backfill_stmt FROM @backfill;
+EXECUTE backfill_stmt;
+DEALLOCATE PREPARE backfill_stmt;
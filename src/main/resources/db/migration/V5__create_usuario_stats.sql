@@ -0,0 +1,30 @@
+-- Contadores por usuario mantenidos de forma incremental (posts, likes recibidos, comentarios)
+-- para no recalcularlos en cada lectura de perfil o listado de usuarios
+CREATE TABLE IF NOT EXISTS usuario_stats (
+    usuario_id BIGINT NOT NULL PRIMARY KEY,
+    total_posts INT NOT NULL DEFAULT 0,
+    total_likes_recibidos BIGINT NOT NULL DEFAULT 0,
+    total_comentarios INT NOT NULL DEFAULT 0,
+    CONSTRAINT fk_usuario_stats_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id) ON DELETE CASCADE
+);
+
+-- Backfill de posts y likes recibidos
+INSERT INTO usuario_stats (usuario_id, total_posts, total_likes_recibidos)
+SELECT u.id, COUNT(p.id), COALESCE(SUM(p.like_count), 0)
+FROM usuarios u
+LEFT JOIN posts p ON p.usuario_id = u.id
+GROUP BY u.id;
+
+-- Backfill de comentarios (solo si la tabla existe en este esquema)
+SET @backfill = (
+    SELECT IF(COUNT(*) = 0, 'SELECT 1',
+        'UPDATE usuario_stats s
+         JOIN (SELECT usuario_id, COUNT(*) AS total FROM comentarios GROUP BY usuario_id) c
+           ON c.usuario_id = s.usuario_id
+         SET s.total_comentarios = c.total')
+    FROM information_schema.tables
+    WHERE table_schema = DATABASE() AND table_name = 'comentarios'
+);
+PREPARE backfill_stmt FROM @backfill;
+EXECUTE backfill_stmt;
+DEALLOCATE PREPARE backfill_stmt;
@@ -0,0 +1,7 @@
+-- Progreso de tareas por lotes (p. ej. purga de refresh_tokens) para retomarlas tras un reinicio
+CREATE TABLE IF NOT EXISTS tareas_checkpoint (
+    nombre VARCHAR(100) NOT NULL PRIMARY KEY,
+    ultimo_id BIGINT NOT NULL DEFAULT 0,
+    ciclo_completado_en DATETIME NULL,
+    actualizado_en DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
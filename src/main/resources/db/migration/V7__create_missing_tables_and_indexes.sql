@@ -0,0 +1,124 @@
+-- Tablas, columnas e índices que declaran las entidades y que nunca se crearon:
+-- con ddl-auto=validate Hibernate no genera nada, y V1 no incluye comentarios ni
+-- refresh_tokens (likes y su UNIQUE los crea V2_1). Todo se condiciona a information_schema, así que en esquemas
+-- creados en su momento con ddl-auto=update (y luego baseline) solo se agrega lo que falte.
+-- Los nombres de índice coinciden con @Table(indexes = ...); VerificadorIndices los compara al
+-- arrancar y, como aquí, acepta uno equivalente (mismas columnas) creado antes con otro nombre.
+
+DROP PROCEDURE IF EXISTS hooked_agregar_columna;
+DROP PROCEDURE IF EXISTS hooked_agregar_indice;
+
+DELIMITER //
+
+CREATE PROCEDURE hooked_agregar_columna(IN tabla VARCHAR(64), IN columna VARCHAR(64), IN definicion VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = tabla AND column_name = columna) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', tabla, ' ADD COLUMN ', columna, ' ', definicion);
+        PREPARE ddl_stmt FROM @ddl;
+        EXECUTE ddl_stmt;
+        DEALLOCATE PREPARE ddl_stmt;
+    END IF;
+END //
+
+-- Se busca por columnas y no solo por nombre: ddl-auto=update y el UNIQUE inline de V1
+-- (usuarios.email) ya crearon algunos con otro nombre. ASC/DESC no cuenta (el índice se
+-- recorre en ambos sentidos) y un UNIQUE con las mismas columnas cubre al índice simple.
+CREATE PROCEDURE hooked_agregar_indice(IN tabla VARCHAR(64), IN indice VARCHAR(64), IN columnas VARCHAR(255), IN unico BOOLEAN)
+BEGIN
+    DECLARE solo_columnas VARCHAR(255) DEFAULT REPLACE(REPLACE(REPLACE(columnas, ' DESC', ''), ' ASC', ''), ' ', '');
+
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = tabla AND index_type <> 'FULLTEXT'
+                   GROUP BY index_name
+                   HAVING index_name = indice
+                       OR (GROUP_CONCAT(column_name ORDER BY seq_in_index SEPARATOR ',') = solo_columnas
+                           AND (NOT unico OR MIN(non_unique) = 0))) THEN
+        SET @ddl = CONCAT('CREATE ', IF(unico, 'UNIQUE ', ''), 'INDEX ', indice, ' ON ', tabla, ' (', columnas, ')');
+        PREPARE ddl_stmt FROM @ddl;
+        EXECUTE ddl_stmt;
+        DEALLOCATE PREPARE ddl_stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+-- ========== USUARIOS: columnas de perfil que V1 no tiene ==========
+
+CALL hooked_agregar_columna('usuarios', 'foto_perfil', 'VARCHAR(255) NULL');
+CALL hooked_agregar_columna('usuarios', 'bio', 'VARCHAR(500) NULL');
+CALL hooked_agregar_columna('usuarios', 'ultima_actividad', 'DATETIME(6) NULL');
+CALL hooked_agregar_columna('usuarios', 'ubicacion_preferida', 'VARCHAR(100) NULL');
+CALL hooked_agregar_columna('usuarios', 'tags', 'VARCHAR(1000) NULL');
+CALL hooked_agregar_columna('usuarios', 'fecha_registro', 'DATETIME(6) NULL');
+CALL hooked_agregar_columna('usuarios', 'nivel_pescador', 'VARCHAR(20) NULL');
+
+-- ========== TABLAS FALTANTES ==========
+
+CREATE TABLE IF NOT EXISTS comentarios (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    contenido VARCHAR(1000) NOT NULL,
+    fecha_creacion DATETIME(6) NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    comentario_padre_id BIGINT NULL,
+    CONSTRAINT fk_comentarios_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT fk_comentarios_post FOREIGN KEY (post_id) REFERENCES posts(id),
+    CONSTRAINT fk_comentarios_padre FOREIGN KEY (comentario_padre_id) REFERENCES comentarios(id)
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token VARCHAR(255) NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    fecha_creacion DATETIME(6) NOT NULL,
+    fecha_expiracion DATETIME(6) NOT NULL,
+    activo BIT(1) NOT NULL DEFAULT b'1',
+    dispositivo_info VARCHAR(500) NULL,
+    ip_address VARCHAR(45) NULL,
+    CONSTRAINT fk_refresh_tokens_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id)
+);
+
+-- ========== ÍNDICES: posts ==========
+
+CALL hooked_agregar_indice('posts', 'idx_post_fecha_creacion', 'fecha_creacion DESC', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_usuario_fecha', 'usuario_id, fecha_creacion DESC', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_categoria_fecha', 'categoria_id, fecha_creacion DESC', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_usuario_categoria_fecha', 'usuario_id, categoria_id, fecha_creacion DESC', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_likes', 'like_count DESC', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_titulo', 'titulo', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_usuario_stats', 'usuario_id', FALSE);
+CALL hooked_agregar_indice('posts', 'idx_post_categoria_stats', 'categoria_id', FALSE);
+
+-- ========== ÍNDICES: usuarios ==========
+
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_email', 'email', TRUE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_nombre', 'nombre', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_ubicacion', 'ubicacion_preferida', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_nivel', 'nivel_pescador', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_fecha_registro', 'fecha_registro DESC', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_ultima_actividad', 'ultima_actividad DESC', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_nivel_fecha', 'nivel_pescador, fecha_registro DESC', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_ubicacion_fecha', 'ubicacion_preferida, fecha_registro DESC', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_actividad_fecha', 'ultima_actividad, fecha_registro DESC', FALSE);
+CALL hooked_agregar_indice('usuarios', 'idx_usuario_posts_count', 'id, fecha_registro DESC', FALSE);
+
+-- ========== ÍNDICES: comentarios ==========
+
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_post_fecha', 'post_id, fecha_creacion ASC', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_post_principal', 'post_id, comentario_padre_id, fecha_creacion ASC', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_padre_fecha', 'comentario_padre_id, fecha_creacion ASC', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_usuario_fecha', 'usuario_id, fecha_creacion DESC', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_post_count', 'post_id', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_usuario_count', 'usuario_id', FALSE);
+CALL hooked_agregar_indice('comentarios', 'idx_comentario_padre', 'comentario_padre_id', FALSE);
+
+-- ========== ÍNDICES: refresh_tokens ==========
+
+CALL hooked_agregar_indice('refresh_tokens', 'idx_refresh_token', 'token', TRUE);
+CALL hooked_agregar_indice('refresh_tokens', 'idx_refresh_usuario_activo', 'usuario_id, activo', FALSE);
+CALL hooked_agregar_indice('refresh_tokens', 'idx_refresh_expiracion', 'fecha_expiracion', FALSE);
+CALL hooked_agregar_indice('refresh_tokens', 'idx_refresh_usuario_fecha', 'usuario_id, fecha_creacion DESC', FALSE);
+
+DROP PROCEDURE hooked_agregar_columna;
+DROP PROCEDURE hooked_agregar_indice;
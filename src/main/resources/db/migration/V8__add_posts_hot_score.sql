@@ -0,0 +1,16 @@
+-- Puntaje de tendencia por post: likes y comentarios ponderados por antigüedad.
+-- Lo mantiene TendenciasService (sumas incrementales + decaimiento periódico);
+-- el índice permite leer /api/posts/tendencias sin ordenar toda la tabla.
+ALTER TABLE posts
+ADD COLUMN hot_score DOUBLE NOT NULL DEFAULT 0,
+ADD INDEX idx_post_hot_score (hot_score DESC, id DESC);
+
+-- Valor inicial con los pesos por defecto (post 1, like 1, comentario 2) y vida
+-- media de 24 h; lo que queda por debajo del umbral (0.01) se deja en 0
+UPDATE posts p
+LEFT JOIN (SELECT post_id, COUNT(*) AS total FROM comentarios GROUP BY post_id) c ON c.post_id = p.id
+SET p.hot_score = (1 + COALESCE(p.like_count, 0) + 2 * COALESCE(c.total, 0))
+                  * POW(0.5, TIMESTAMPDIFF(MINUTE, p.fecha_creacion, NOW()) / (24 * 60))
+WHERE TIMESTAMPDIFF(HOUR, p.fecha_creacion, NOW()) < 24 * 30;
+
+UPDATE posts SET hot_score = 0 WHERE hot_score > 0 AND hot_score < 0.01;
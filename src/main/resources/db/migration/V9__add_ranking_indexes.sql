@@ -0,0 +1,12 @@
+-- Rankings de usuarios leídos por índice (página de ids sin ordenar la tabla):
+-- más posts y más likes recibidos sobre usuario_stats, mejores rachas sobre usuarios
+ALTER TABLE usuario_stats
+ADD INDEX idx_usuario_stats_posts (total_posts DESC, usuario_id DESC),
+ADD INDEX idx_usuario_stats_likes (total_likes_recibidos DESC, usuario_id DESC);
+
+ALTER TABLE usuarios
+ADD INDEX idx_usuario_racha (racha_actual DESC, id DESC);
+
+-- Filas en usuario_stats para los usuarios que aún no tienen (entran al ranking con 0)
+INSERT IGNORE INTO usuario_stats (usuario_id)
+SELECT id FROM usuarios;
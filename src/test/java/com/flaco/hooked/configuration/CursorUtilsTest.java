@@ -0,0 +1,63 @@
+package com.flaco.hooked.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilsTest {
+
+    @Test
+    void codificarYDecodificarDevuelveLaMismaPosicion() {
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+
+        CursorUtils.Posicion posicion = CursorUtils.decodificar(CursorUtils.codificar(fecha, 42L));
+
+        assertThat(posicion.getFecha()).isEqualTo(fecha);
+        assertThat(posicion.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void elCursorEsSeguroParaUrl() {
+        String cursor = CursorUtils.codificar(LocalDateTime.of(2025, 1, 1, 0, 0), Long.MAX_VALUE);
+
+        assertThat(cursor).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void cursorNuloOVacioEsLaPrimeraPagina() {
+        assertThat(CursorUtils.decodificar(null)).isNull();
+        assertThat(CursorUtils.decodificar("")).isNull();
+        assertThat(CursorUtils.decodificar("   ")).isNull();
+    }
+
+    @Test
+    void cursorQueNoEsBase64EsInvalido() {
+        assertThatThrownBy(() -> CursorUtils.decodificar("no es base64!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+
+    @Test
+    void cursorSinSeparadorEsInvalido() {
+        assertThatThrownBy(() -> CursorUtils.decodificar(base64("2025-01-01T00:00")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor inválido");
+    }
+
+    @Test
+    void cursorConFechaOIdMalFormadosEsInvalido() {
+        assertThatThrownBy(() -> CursorUtils.decodificar(base64("ayer|5")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorUtils.decodificar(base64("2025-01-01T00:00|cinco")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String base64(String crudo) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
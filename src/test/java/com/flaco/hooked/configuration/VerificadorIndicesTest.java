@@ -0,0 +1,72 @@
+package com.flaco.hooked.configuration;
+
+import com.flaco.hooked.configuration.VerificadorIndices.IndiceDeclarado;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerificadorIndicesTest {
+
+    // ========== PARSEO DE columnList ==========
+
+    @Test
+    void parsearColumnasPasaASnakeCaseYConservaDesc() {
+        assertThat(VerificadorIndices.parsearColumnas("usuario_id, fechaCreacion DESC"))
+                .containsExactly("usuario_id", "fecha_creacion DESC");
+    }
+
+    @Test
+    void parsearColumnasIgnoraAscYEspacios() {
+        assertThat(VerificadorIndices.parsearColumnas("  likeCount   asc ,id"))
+                .containsExactly("like_count", "id");
+        assertThat(VerificadorIndices.parsearColumnas("rachaActual desc"))
+                .containsExactly("racha_actual DESC");
+    }
+
+    // ========== EQUIVALENTE POR COLUMNAS ==========
+
+    @Test
+    void buscarPorColumnasEncuentraUnIndiceConOtroNombre() {
+        IndiceDeclarado enBd = new IndiceDeclarado("likes", "UKhib123", List.of("usuario_id", "post_id"), true);
+        IndiceDeclarado declarado = new IndiceDeclarado("likes", "uk_likes_usuario_post", List.of("usuario_id", "post_id"), true);
+
+        assertThat(VerificadorIndices.buscarPorColumnas(actuales(enBd), declarado)).isEqualTo(enBd);
+    }
+
+    @Test
+    void buscarPorColumnasNoDistingueAscDeDesc() {
+        IndiceDeclarado enBd = new IndiceDeclarado("posts", "idx_viejo", List.of("fecha_creacion"), false);
+        IndiceDeclarado declarado = new IndiceDeclarado("posts", "idx_post_fecha", List.of("fecha_creacion DESC"), false);
+
+        assertThat(VerificadorIndices.buscarPorColumnas(actuales(enBd), declarado)).isEqualTo(enBd);
+    }
+
+    @Test
+    void unUniqueDeclaradoNoSeCubreConUnIndiceNoUnico() {
+        IndiceDeclarado enBd = new IndiceDeclarado("likes", "idx_likes", List.of("usuario_id", "post_id"), false);
+        IndiceDeclarado declarado = new IndiceDeclarado("likes", "uk_likes_usuario_post", List.of("usuario_id", "post_id"), true);
+
+        assertThat(VerificadorIndices.buscarPorColumnas(actuales(enBd), declarado)).isNull();
+    }
+
+    @Test
+    void elOrdenDeLasColumnasYLaTablaCuentan() {
+        IndiceDeclarado invertido = new IndiceDeclarado("likes", "idx_a", List.of("post_id", "usuario_id"), true);
+        IndiceDeclarado otraTabla = new IndiceDeclarado("comentarios", "idx_b", List.of("usuario_id", "post_id"), true);
+        IndiceDeclarado declarado = new IndiceDeclarado("likes", "uk_likes_usuario_post", List.of("usuario_id", "post_id"), true);
+
+        assertThat(VerificadorIndices.buscarPorColumnas(actuales(invertido, otraTabla), declarado)).isNull();
+    }
+
+    private static Map<String, IndiceDeclarado> actuales(IndiceDeclarado... indices) {
+        Map<String, IndiceDeclarado> mapa = new LinkedHashMap<>();
+        for (IndiceDeclarado indice : indices) {
+            mapa.put(indice.clave(), indice);
+        }
+        return mapa;
+    }
+}
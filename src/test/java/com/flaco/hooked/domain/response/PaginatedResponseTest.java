@@ -0,0 +1,50 @@
+package com.flaco.hooked.domain.response;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaginatedResponseTest {
+
+    @Test
+    void conPageTraeLosTotales() {
+        PaginatedResponse<String> respuesta = new PaginatedResponse<>(
+                new PageImpl<>(List.of("a", "b"), PageRequest.of(1, 2), 7));
+
+        assertThat(respuesta.isConTotal()).isTrue();
+        assertThat(respuesta.getTotalElementos()).isEqualTo(7);
+        assertThat(respuesta.getTotalPaginas()).isEqualTo(4);
+        assertThat(respuesta.getPaginaActual()).isEqualTo(1);
+        assertThat(respuesta.getTamanoPagina()).isEqualTo(2);
+        assertThat(respuesta.isEsPrimeraPagina()).isFalse();
+        assertThat(respuesta.isEsUltimaPagina()).isFalse();
+        assertThat(respuesta.getContenido()).containsExactly("a", "b");
+    }
+
+    @Test
+    void conSliceLosTotalesQuedanEnMenosUno() {
+        PaginatedResponse<String> respuesta = new PaginatedResponse<>(
+                new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true));
+
+        assertThat(respuesta.isConTotal()).isFalse();
+        assertThat(respuesta.getTotalElementos()).isEqualTo(-1);
+        assertThat(respuesta.getTotalPaginas()).isEqualTo(-1);
+        assertThat(respuesta.isEsPrimeraPagina()).isTrue();
+        assertThat(respuesta.isEsUltimaPagina()).isFalse();
+    }
+
+    @Test
+    void sliceSinSiguienteEsLaUltimaPagina() {
+        PaginatedResponse<String> respuesta = new PaginatedResponse<>(
+                new SliceImpl<>(List.of(), PageRequest.of(3, 10), false));
+
+        assertThat(respuesta.isEsUltimaPagina()).isTrue();
+        assertThat(respuesta.isEstaVacia()).isTrue();
+        assertThat(respuesta.isConTotal()).isFalse();
+    }
+}
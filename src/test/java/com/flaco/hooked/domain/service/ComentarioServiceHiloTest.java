@@ -0,0 +1,119 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.repository.ComentarioRepository;
+import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.domain.response.HiloComentariosResponse;
+import com.flaco.hooked.domain.response.HiloComentariosResponse.NodoComentario;
+import com.flaco.hooked.model.Comentario;
+import com.flaco.hooked.model.Post;
+import com.flaco.hooked.model.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ComentarioServiceHiloTest {
+
+    private static final Long POST_ID = 10L;
+
+    @Mock private ComentarioRepository comentarioRepository;
+    @Mock private PostRepository postRepository;
+
+    @InjectMocks
+    private ComentarioService comentarioService;
+
+    private Usuario autor;
+    private Post post;
+
+    @BeforeEach
+    void crearPost() {
+        autor = new Usuario();
+        autor.setId(1L);
+        autor.setNombre("Juan Pérez");
+
+        post = new Post();
+        post.setId(POST_ID);
+    }
+
+    @Test
+    void armaElArbolConLasRespuestasBajoSuPadre() {
+        Comentario a = comentario(1L, null);
+        Comentario b = comentario(2L, null);
+        Comentario a1 = comentario(3L, a);
+        Comentario a1x = comentario(4L, a1);
+        Comentario a2 = comentario(5L, a);
+        hilo(false, a, b, a1, a1x, a2);
+
+        HiloComentariosResponse respuesta = comentarioService.obtenerHiloPorPost(POST_ID, 100);
+
+        assertThat(respuesta.getTotalCargados()).isEqualTo(5);
+        assertThat(respuesta.isHayMas()).isFalse();
+        assertThat(respuesta.getComentarios()).extracting(NodoComentario::getId).containsExactly(1L, 2L);
+
+        NodoComentario nodoA = respuesta.getComentarios().get(0);
+        assertThat(nodoA.getRespuestas()).extracting(NodoComentario::getId).containsExactly(3L, 5L);
+        assertThat(nodoA.getTotalRespuestas()).isEqualTo(2);
+        assertThat(nodoA.getRespuestas().get(0).getRespuestas())
+                .extracting(NodoComentario::getId).containsExactly(4L);
+        assertThat(respuesta.getComentarios().get(1).getTotalRespuestas()).isZero();
+    }
+
+    @Test
+    void unaRespuestaSinSuPadreEnLaVentanaSeMuestraComoPrincipal() {
+        Comentario fueraDeVentana = comentario(1L, null);
+        hilo(true, comentario(2L, fueraDeVentana), comentario(3L, null));
+
+        HiloComentariosResponse respuesta = comentarioService.obtenerHiloPorPost(POST_ID, 2);
+
+        assertThat(respuesta.getComentarios()).extracting(NodoComentario::getId).containsExactly(2L, 3L);
+        assertThat(respuesta.isHayMas()).isTrue();
+    }
+
+    @Test
+    void elMaximoSeAcota() {
+        when(postRepository.existsById(POST_ID)).thenReturn(true);
+        when(comentarioRepository.findHiloByPostId(POST_ID, PageRequest.of(0, 1000)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        assertThat(comentarioService.obtenerHiloPorPost(POST_ID, 50_000).getComentarios()).isEmpty();
+    }
+
+    @Test
+    void postInexistente() {
+        when(postRepository.existsById(POST_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> comentarioService.obtenerHiloPorPost(POST_ID, 100))
+                .hasMessage("Post no encontrado");
+    }
+
+    private void hilo(boolean hayMas, Comentario... comentarios) {
+        when(postRepository.existsById(POST_ID)).thenReturn(true);
+        when(comentarioRepository.findHiloByPostId(eq(POST_ID), any()))
+                .thenReturn(new SliceImpl<>(List.of(comentarios), PageRequest.of(0, comentarios.length), hayMas));
+    }
+
+    private Comentario comentario(Long id, Comentario padre) {
+        Comentario comentario = new Comentario();
+        comentario.setId(id);
+        comentario.setContenido("Comentario " + id);
+        comentario.setFechaCreacion(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id));
+        comentario.setUsuario(autor);
+        comentario.setPost(post);
+        comentario.setComentarioPadre(padre);
+        return comentario;
+    }
+}
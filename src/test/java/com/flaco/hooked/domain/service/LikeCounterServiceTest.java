@@ -0,0 +1,157 @@
+package com.flaco.hooked.domain.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LikeCounterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private LikeCounterService likeCounterService;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> lote;
+
+    // Sin transacción activa registrar() suma al momento
+
+    @Test
+    void acumulaLosDeltasPorPost() {
+        likeCounterService.registrar(1L, 1);
+        likeCounterService.registrar(1L, 1);
+        likeCounterService.registrar(2L, -1);
+
+        assertThat(likeCounterService.pendiente(1L)).isEqualTo(2);
+        assertThat(likeCounterService.pendiente(2L)).isEqualTo(-1);
+        assertThat(likeCounterService.pendiente(3L)).isZero();
+    }
+
+    @Test
+    void likeYUnlikeSeCancelanYNoLleganALaBd() {
+        likeCounterService.registrar(1L, 1);
+        likeCounterService.registrar(1L, -1);
+
+        likeCounterService.flush();
+
+        assertThat(likeCounterService.pendiente(1L)).isZero();
+        verifyNoInteractions(transactionTemplate, jdbcTemplate);
+    }
+
+    @Test
+    void flushAplicaLosDeltasEnUnBatchYDrenaElMapa() {
+        ejecutarTransacciones();
+        likeCounterService.registrar(1L, 3);
+        likeCounterService.registrar(2L, -1);
+
+        likeCounterService.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("UPDATE posts SET like_count"), lote.capture());
+        assertThat(lote.getValue())
+                .extracting(fila -> List.of(fila))
+                .containsExactlyInAnyOrder(List.of(3L, 1L), List.of(-1L, 2L));
+        verify(jdbcTemplate).batchUpdate(contains("usuario_stats"), ArgumentMatchers.<List<Object[]>>any());
+
+        assertThat(likeCounterService.pendiente(1L)).isZero();
+        assertThat(likeCounterService.pendiente(2L)).isZero();
+    }
+
+    @Test
+    void siElFlushFallaLosDeltasVuelvenSinPerderLosNuevos() {
+        doThrow(new RuntimeException("BD caída"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        likeCounterService.registrar(1L, 2);
+
+        likeCounterService.flush();
+        likeCounterService.registrar(1L, 1);
+
+        assertThat(likeCounterService.pendiente(1L)).isEqualTo(3);
+    }
+
+    @Test
+    void unaEntradaSinDeltasSeQuitaYElPostSigueSumando() {
+        ejecutarTransacciones();
+        likeCounterService.registrar(1L, 1);
+        likeCounterService.flush();
+
+        // Segundo flush sin likes nuevos: la entrada inactiva sale del mapa
+        likeCounterService.flush();
+        likeCounterService.registrar(1L, 1);
+
+        assertThat(likeCounterService.pendiente(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void losLikesConcurrentesConElFlushNoSePierden() throws Exception {
+        ejecutarTransacciones();
+        AtomicLong aplicados = new AtomicLong();
+        lenient().doAnswer(invocacion -> {
+            List<Object[]> filas = invocacion.getArgument(1);
+            filas.forEach(fila -> aplicados.addAndGet((Long) fila[0]));
+            return new int[filas.size()];
+        }).when(jdbcTemplate).batchUpdate(contains("UPDATE posts"), ArgumentMatchers.<List<Object[]>>any());
+
+        int hilos = 4;
+        int likesPorHilo = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    for (int n = 0; n < likesPorHilo; n++) {
+                        likeCounterService.registrar(1L, 1);
+                    }
+                }));
+            }
+            while (tareas.stream().anyMatch(t -> !t.isDone())) {
+                likeCounterService.flush();
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        likeCounterService.flush();
+
+        assertThat(aplicados.get() + likeCounterService.pendiente(1L)).isEqualTo((long) hilos * likesPorHilo);
+    }
+
+    private void ejecutarTransacciones() {
+        doAnswer(invocacion -> {
+            invocacion.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+}
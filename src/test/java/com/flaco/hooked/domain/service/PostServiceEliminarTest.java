@@ -0,0 +1,102 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.repository.ComentarioRepository;
+import com.flaco.hooked.domain.repository.ConteoPorId;
+import com.flaco.hooked.domain.repository.LikeRepository;
+import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.domain.repository.UsuarioStatsRepository;
+import com.flaco.hooked.model.Categoria;
+import com.flaco.hooked.model.Post;
+import com.flaco.hooked.model.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PostServiceEliminarTest {
+
+    private static final Long POST_ID = 10L;
+    private static final Long AUTOR_ID = 1L;
+
+    @Mock private PostRepository postRepository;
+    @Mock private LikeRepository likeRepository;
+    @Mock private ComentarioRepository comentarioRepository;
+    @Mock private UsuarioStatsRepository usuarioStatsRepository;
+    @Mock private LikeCounterService likeCounterService;
+    @Mock private TendenciasService tendenciasService;
+    @Mock private CategoriaCache categoriaCache;
+
+    @InjectMocks
+    private PostService postService;
+
+    private Post post;
+
+    @BeforeEach
+    void crearPost() {
+        Usuario autor = new Usuario();
+        autor.setId(AUTOR_ID);
+
+        Categoria categoria = new Categoria();
+        categoria.setId(3L);
+
+        post = new Post();
+        post.setId(POST_ID);
+        post.setLikeCount(12);
+        post.setUsuario(autor);
+        post.setCategoria(categoria);
+    }
+
+    @Test
+    void descuentaLosLikesLeidosConLaFilaBloqueadaYDescartaLosPendientes() {
+        when(postRepository.findParaEliminarById(POST_ID)).thenReturn(Optional.of(post));
+        when(comentarioRepository.contarPorAutorEnPost(POST_ID)).thenReturn(List.of(conteo(2L, 3L)));
+
+        postService.eliminarPost(POST_ID, AUTOR_ID);
+
+        InOrder orden = inOrder(postRepository);
+        orden.verify(postRepository).findParaEliminarById(POST_ID);
+        orden.verify(postRepository).delete(post);
+        verify(postRepository, never()).findById(anyLong());
+
+        verify(usuarioStatsRepository).sumarLikesRecibidos(AUTOR_ID, -12L);
+        verify(usuarioStatsRepository).sumarPosts(AUTOR_ID, -1);
+        verify(usuarioStatsRepository).sumarComentarios(2L, -3);
+        verify(likeCounterService).descartar(POST_ID);
+        verify(tendenciasService).descartar(POST_ID);
+    }
+
+    @Test
+    void soloElAutorPuedeEliminar() {
+        when(postRepository.findParaEliminarById(POST_ID)).thenReturn(Optional.of(post));
+
+        assertThatThrownBy(() -> postService.eliminarPost(POST_ID, 99L))
+                .hasMessage("No tienes permisos para eliminar este post");
+        verify(postRepository, never()).delete(any());
+        verify(usuarioStatsRepository, never()).sumarLikesRecibidos(anyLong(), anyLong());
+    }
+
+    private static ConteoPorId conteo(Long id, Long total) {
+        return new ConteoPorId() {
+            @Override
+            public Long getId() { return id; }
+
+            @Override
+            public Long getTotal() { return total; }
+        };
+    }
+}
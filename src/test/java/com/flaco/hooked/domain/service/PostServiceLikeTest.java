@@ -0,0 +1,120 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.repository.ComentarioRepository;
+import com.flaco.hooked.domain.repository.LikeRepository;
+import com.flaco.hooked.domain.repository.PostRepository;
+import com.flaco.hooked.domain.response.PostResponse;
+import com.flaco.hooked.model.Categoria;
+import com.flaco.hooked.model.Post;
+import com.flaco.hooked.model.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PostServiceLikeTest {
+
+    private static final Long POST_ID = 10L;
+    private static final Long USUARIO_ID = 7L;
+
+    @Mock private PostRepository postRepository;
+    @Mock private LikeRepository likeRepository;
+    @Mock private ComentarioRepository comentarioRepository;
+    @Mock private LikeCounterService likeCounterService;
+    @Mock private TendenciasService tendenciasService;
+    @Mock private CategoriaCache categoriaCache;
+
+    @InjectMocks
+    private PostService postService;
+
+    private Post post;
+
+    @BeforeEach
+    void crearPost() {
+        Usuario autor = new Usuario();
+        autor.setId(1L);
+        autor.setNombre("Juan Pérez");
+
+        Categoria categoria = new Categoria();
+        categoria.setId(3L);
+        categoria.setNombre("Pesca en río");
+
+        post = new Post();
+        post.setId(POST_ID);
+        post.setTitulo("Trucha en el Limay");
+        post.setLikeCount(5);
+        post.setUsuario(autor);
+        post.setCategoria(categoria);
+    }
+
+    @Test
+    void sinLikePrevioElInsertDaElLike() {
+        when(postRepository.findConAutorYCategoriaById(POST_ID)).thenReturn(Optional.of(post));
+        when(likeRepository.insertarSiNoExiste(USUARIO_ID, POST_ID)).thenReturn(1);
+
+        PostResponse respuesta = postService.toggleLike(POST_ID, USUARIO_ID, null);
+
+        assertThat(respuesta.getLikedByCurrentUser()).isTrue();
+        assertThat(respuesta.getLikeCount()).isEqualTo(6);
+        verify(likeRepository, never()).eliminarLike(anyLong(), anyLong());
+        verify(likeCounterService).registrar(POST_ID, 1);
+        verify(tendenciasService).registrarLike(POST_ID, 1);
+    }
+
+    @Test
+    void conLikePrevioElInsertIgnoradoLoQuita() {
+        when(postRepository.findConAutorYCategoriaById(POST_ID)).thenReturn(Optional.of(post));
+        when(likeRepository.insertarSiNoExiste(USUARIO_ID, POST_ID)).thenReturn(0);
+        when(likeRepository.eliminarLike(USUARIO_ID, POST_ID)).thenReturn(1);
+
+        PostResponse respuesta = postService.toggleLike(POST_ID, USUARIO_ID, null);
+
+        assertThat(respuesta.getLikedByCurrentUser()).isFalse();
+        assertThat(respuesta.getLikeCount()).isEqualTo(4);
+        verify(likeCounterService).registrar(POST_ID, -1);
+    }
+
+    @Test
+    void siOtraPeticionLoQuitoPrimeroElContadorNoCambia() {
+        when(postRepository.findConAutorYCategoriaById(POST_ID)).thenReturn(Optional.of(post));
+        when(likeRepository.insertarSiNoExiste(USUARIO_ID, POST_ID)).thenReturn(0);
+        when(likeRepository.eliminarLike(USUARIO_ID, POST_ID)).thenReturn(0);
+
+        PostResponse respuesta = postService.toggleLike(POST_ID, USUARIO_ID, null);
+
+        assertThat(respuesta.getLikeCount()).isEqualTo(5);
+        verify(likeCounterService).registrar(POST_ID, 0);
+    }
+
+    @Test
+    void elConteoMezclaLosDeltasPendientesDelWriteBehind() {
+        when(postRepository.findConAutorYCategoriaById(POST_ID)).thenReturn(Optional.of(post));
+        when(likeRepository.insertarSiNoExiste(USUARIO_ID, POST_ID)).thenReturn(1);
+        when(likeCounterService.pendiente(POST_ID)).thenReturn(2L);
+
+        PostResponse respuesta = postService.toggleLike(POST_ID, USUARIO_ID, null);
+
+        assertThat(respuesta.getLikeCount()).isEqualTo(8);
+    }
+
+    @Test
+    void postInexistente() {
+        when(postRepository.findConAutorYCategoriaById(POST_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> postService.toggleLike(POST_ID, USUARIO_ID, null))
+                .hasMessage("Post no encontrado");
+        verify(likeRepository, never()).insertarSiNoExiste(anyLong(), anyLong());
+    }
+}
@@ -0,0 +1,120 @@
+package com.flaco.hooked.domain.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RefreshTokenPurgaServiceTest {
+
+    private static final String TAREA = "purga_refresh_tokens";
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private RefreshTokenStore refreshTokenStore;
+
+    @InjectMocks
+    private RefreshTokenPurgaService purgaService;
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(purgaService, "tamanoLote", 500L);
+        ReflectionTestUtils.setField(purgaService, "pausaMs", 0L);
+        ReflectionTestUtils.setField(purgaService, "meterRegistry", new SimpleMeterRegistry());
+        purgaService.registrarMetricas();
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocacion ->
+                invocacion.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void retomaDesdeElCheckpointSinVolverAlPrincipio() {
+        checkpoint(1000L);
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(1500L);
+
+        purgaService.purgar();
+
+        verify(jdbcTemplate, never()).queryForObject(contains("MIN(id)"), eq(Long.class));
+        verify(jdbcTemplate).update(contains("DELETE FROM refresh_tokens"), eq(1000L), eq(1500L), any(Timestamp.class));
+        verify(jdbcTemplate, never()).update(contains("DELETE FROM refresh_tokens"), eq(500L), eq(1000L), any(Timestamp.class));
+        verify(jdbcTemplate).update(contains("ciclo_completado_en"), eq(TAREA), any(Timestamp.class));
+    }
+
+    @Test
+    void cicloNuevoArrancaEnElIdMasBajoYGuardaCadaLote() {
+        checkpoint();
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(1500L);
+        when(jdbcTemplate.queryForObject(contains("MIN(id)"), eq(Long.class))).thenReturn(101L);
+
+        purgaService.purgar();
+
+        // (100, 600], (600, 1100], (1100, 1500]: cada lote guarda hasta dónde llegó
+        InOrder orden = inOrder(jdbcTemplate);
+        orden.verify(jdbcTemplate).update(contains("DELETE FROM refresh_tokens"), eq(100L), eq(600L), any(Timestamp.class));
+        orden.verify(jdbcTemplate).update(contains("ON DUPLICATE KEY UPDATE ultimo_id"), eq(TAREA), eq(600L));
+        orden.verify(jdbcTemplate).update(contains("DELETE FROM refresh_tokens"), eq(600L), eq(1100L), any(Timestamp.class));
+        orden.verify(jdbcTemplate).update(contains("ON DUPLICATE KEY UPDATE ultimo_id"), eq(TAREA), eq(1100L));
+        orden.verify(jdbcTemplate).update(contains("DELETE FROM refresh_tokens"), eq(1100L), eq(1500L), any(Timestamp.class));
+        orden.verify(jdbcTemplate).update(contains("ON DUPLICATE KEY UPDATE ultimo_id"), eq(TAREA), eq(1500L));
+        orden.verify(jdbcTemplate).update(contains("ciclo_completado_en"), eq(TAREA), any(Timestamp.class));
+    }
+
+    @Test
+    void siUnLoteFallaElCheckpointQuedaEnElUltimoConfirmado() {
+        checkpoint();
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(1500L);
+        when(jdbcTemplate.queryForObject(contains("MIN(id)"), eq(Long.class))).thenReturn(1L);
+        when(jdbcTemplate.update(contains("DELETE FROM refresh_tokens"), eq(500L), eq(1000L), any(Timestamp.class)))
+                .thenThrow(new RuntimeException("Lock wait timeout"));
+
+        purgaService.purgar();
+
+        verify(jdbcTemplate).update(contains("ON DUPLICATE KEY UPDATE ultimo_id"), eq(TAREA), eq(500L));
+        verify(jdbcTemplate, never()).update(contains("ON DUPLICATE KEY UPDATE ultimo_id"), eq(TAREA), eq(1000L));
+        verify(jdbcTemplate, never()).update(contains("ciclo_completado_en"), eq(TAREA), any(Timestamp.class));
+        verify(refreshTokenStore).purgarExpiradas();
+    }
+
+    @Test
+    void sinNadaPendienteSoloCierraElCiclo() {
+        checkpoint(1500L);
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(1500L);
+
+        purgaService.purgar();
+
+        verify(jdbcTemplate, never()).update(contains("DELETE FROM refresh_tokens"), any(), any(), any());
+        verify(jdbcTemplate).update(contains("ciclo_completado_en"), eq(TAREA), any(Timestamp.class));
+    }
+
+    private void checkpoint(Long... ultimoId) {
+        doReturn(List.of(ultimoId))
+                .when(jdbcTemplate).query(anyString(), ArgumentMatchers.<RowMapper<Long>>any(), eq(TAREA));
+    }
+}
@@ -0,0 +1,67 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.refreshtoken.RefreshToken;
+import com.flaco.hooked.domain.repository.RefreshTokenRepository;
+import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.domain.service.RefreshTokenStore.SesionRefresh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final String TOKEN = "refresh-juan";
+
+    @Mock private RefreshTokenRepository refreshTokenRepository;
+    @Mock private RefreshTokenStore refreshTokenStore;
+    @Mock private UsuarioRepository usuarioRepository;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    void tokenEnMemoriaYActivoEnBd() {
+        when(refreshTokenStore.estaListo()).thenReturn(true);
+        when(refreshTokenStore.buscar(TOKEN)).thenReturn(Optional.of(sesion()));
+        when(refreshTokenRepository.existsByTokenAndActivoTrue(TOKEN)).thenReturn(true);
+
+        Optional<RefreshToken> token = refreshTokenService.buscarPorToken(TOKEN);
+
+        assertThat(token).map(RefreshToken::getToken).contains(TOKEN);
+        verify(refreshTokenStore, never()).quitar(anyString());
+    }
+
+    @Test
+    void tokenRevocadoPorOtraInstanciaSeRechazaYSaleDeMemoria() {
+        when(refreshTokenStore.estaListo()).thenReturn(true);
+        when(refreshTokenStore.buscar(TOKEN)).thenReturn(Optional.of(sesion()));
+        when(refreshTokenRepository.existsByTokenAndActivoTrue(TOKEN)).thenReturn(false);
+
+        assertThat(refreshTokenService.buscarPorToken(TOKEN)).isEmpty();
+        verify(refreshTokenStore).quitar(TOKEN);
+        verify(refreshTokenRepository, never()).findByTokenAndActivoTrue(anyString());
+    }
+
+    @Test
+    void tokenVacioNoConsulta() {
+        assertThat(refreshTokenService.buscarPorToken("  ")).isEmpty();
+        verify(refreshTokenStore, never()).buscar(anyString());
+    }
+
+    private static SesionRefresh sesion() {
+        return new SesionRefresh(1L, TOKEN, 1L, LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(29), "Firefox", "127.0.0.1");
+    }
+}
@@ -0,0 +1,122 @@
+package com.flaco.hooked.domain.service;
+
+import com.flaco.hooked.domain.repository.UsuarioRepository;
+import com.flaco.hooked.model.Usuario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UsuarioSearchIndexTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @InjectMocks
+    private UsuarioSearchIndex index;
+
+    // ========== TOKENIZACIÓN ==========
+
+    @Test
+    void normalizarQuitaAcentosYMayusculas() {
+        assertThat(UsuarioSearchIndex.normalizar("  Ñandú Río  ")).isEqualTo("nandu rio");
+        assertThat(UsuarioSearchIndex.normalizar(null)).isEmpty();
+    }
+
+    @Test
+    void tokenizarCortaPorCualquierSimbolo() {
+        assertThat(UsuarioSearchIndex.tokenizar("Juan.Pérez@gmail.com"))
+                .containsExactly("juan", "perez", "gmail", "com");
+        assertThat(UsuarioSearchIndex.tokenizar("  mosca-seca, río 2 ")).containsExactly("mosca", "seca", "rio", "2");
+        assertThat(UsuarioSearchIndex.tokenizar("¡¿!")).isEmpty();
+    }
+
+    // ========== BÚSQUEDA POR PREFIJO ==========
+    // Sin transacción activa indexar() aplica el cambio al momento
+
+    @Test
+    void buscaPorPrefijoSinImportarAcentos() {
+        index.indexar(usuario(1L, "Juan Pérez", "juan.perez@gmail.com", 1));
+        index.indexar(usuario(2L, "Juanita Gómez", "jgomez@hooked.com", 2));
+        index.indexar(usuario(3L, "Pedro Ruiz", "pedro@hooked.com", 3));
+
+        assertThat(index.buscarPorNombreOEmail("jua")).containsExactly(2L, 1L);
+        assertThat(index.buscarPorNombreOEmail("GOME")).containsExactly(2L);
+        assertThat(index.buscarPorNombreOEmail("perez")).containsExactly(1L);
+        assertThat(index.buscarPorNombreOEmail("uan")).isEmpty();
+    }
+
+    @Test
+    void todasLasPalabrasTienenQueCoincidir() {
+        index.indexar(usuario(1L, "Juan Pérez", "juan.perez@gmail.com", 1));
+        index.indexar(usuario(2L, "Juan Gómez", "jgomez@hooked.com", 2));
+
+        assertThat(index.buscarPorNombreOEmail("juan pe")).containsExactly(1L);
+        assertThat(index.buscarPorNombreOEmail("juan ruiz")).isEmpty();
+    }
+
+    @Test
+    void unEmailPegadoEnteroCoincidePorSusPartes() {
+        index.indexar(usuario(1L, "Juan Pérez", "juan.perez@gmail.com", 1));
+        index.indexar(usuario(2L, "Juan Gómez", "juan@hooked.com", 2));
+
+        assertThat(index.buscarPorNombreOEmail("juan.perez@gmail.com")).containsExactly(1L);
+    }
+
+    @Test
+    void buscarEnTodoIncluyeUbicacionYTags() {
+        Usuario ana = usuario(1L, "Ana", "ana@hooked.com", 1);
+        ana.setUbicacionPreferida("Bariloche");
+        ana.setTags(List.of("mosca", "trucha"));
+        index.indexar(ana);
+
+        assertThat(index.buscarEnTodo("barilo")).containsExactly(1L);
+        assertThat(index.buscarEnTodo("truch")).containsExactly(1L);
+        assertThat(index.buscarPorNombreOEmail("truch")).isEmpty();
+    }
+
+    @Test
+    void editarYEliminarActualizanElIndice() {
+        Usuario juan = usuario(1L, "Juan Pérez", "juan@hooked.com", 1);
+        index.indexar(juan);
+
+        juan.setNombre("Juan Ramírez");
+        index.indexar(juan);
+        assertThat(index.buscarPorNombreOEmail("perez")).isEmpty();
+        assertThat(index.buscarPorNombreOEmail("ramirez")).containsExactly(1L);
+
+        index.eliminar(1L);
+        assertThat(index.buscarPorNombreOEmail("juan")).isEmpty();
+    }
+
+    @Test
+    void reconstruirCargaPorLotesDeId() {
+        when(usuarioRepository.findLoteDesdeId(eq(0L), any()))
+                .thenReturn(List.of(usuario(1L, "Juan Pérez", "juan@hooked.com", 1),
+                        usuario(5L, "Pedro Ruiz", "pedro@hooked.com", 2)));
+
+        index.reconstruir();
+
+        assertThat(index.estaListo()).isTrue();
+        assertThat(index.buscarEnTodo("pe")).containsExactly(5L, 1L);
+    }
+
+    private static Usuario usuario(Long id, String nombre, String email, int diasDesdeInicio) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setNombre(nombre);
+        usuario.setEmail(email);
+        usuario.setFechaRegistro(LocalDateTime.of(2025, 1, 1, 0, 0).plusDays(diasDesdeInicio));
+        return usuario;
+    }
+}
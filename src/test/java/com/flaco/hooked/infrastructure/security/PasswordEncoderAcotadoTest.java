@@ -0,0 +1,108 @@
+package com.flaco.hooked.infrastructure.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordEncoderAcotadoTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch enHash = new CountDownLatch(1);
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final ExecutorService llamadores = Executors.newCachedThreadPool();
+
+    private PasswordEncoderAcotado encoder;
+
+    @AfterEach
+    void cerrar() {
+        liberar.countDown();
+        llamadores.shutdownNow();
+        if (encoder != null) {
+            encoder.close();
+        }
+    }
+
+    @Test
+    void delegaCuandoHayLugar() {
+        encoder = new PasswordEncoderAcotado(new EncoderBloqueante(false), 1, 1, 1000, meterRegistry);
+
+        assertThat(encoder.encode("clave")).isEqualTo("hash:clave");
+        assertThat(encoder.matches("clave", "hash:clave")).isTrue();
+        assertThat(encoder.matches("otra", "hash:clave")).isFalse();
+    }
+
+    @Test
+    void conElHiloYLaColaOcupadosRechazaAlMomento() throws Exception {
+        encoder = new PasswordEncoderAcotado(new EncoderBloqueante(true), 1, 1, 10_000, meterRegistry);
+
+        // Uno ocupa el único hilo y otro la única plaza de la cola
+        Future<String> enCurso = llamadores.submit(() -> encoder.encode("a"));
+        assertThat(enHash.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> encolado = llamadores.submit(() -> encoder.encode("b"));
+        esperarCola(1);
+
+        assertThatThrownBy(() -> encoder.encode("c"))
+                .isInstanceOf(ServicioSaturadoException.class)
+                .satisfies(e -> assertThat(((ServicioSaturadoException) e).getReintentarEnSegundos()).isPositive());
+        assertThat(meterRegistry.get("hooked.password.hash.rechazos").counter().count()).isEqualTo(1);
+
+        liberar.countDown();
+        assertThat(enCurso.get(5, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(encolado.get(5, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    void siLaEsperaSuperaElMaximoRechaza() throws Exception {
+        encoder = new PasswordEncoderAcotado(new EncoderBloqueante(true), 1, 1, 50, meterRegistry);
+
+        assertThatThrownBy(() -> encoder.encode("a"))
+                .isInstanceOf(ServicioSaturadoException.class);
+        assertThat(meterRegistry.get("hooked.password.hash.rechazos").counter().count()).isEqualTo(1);
+    }
+
+    private void esperarCola(int tamano) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("hooked.password.hash.cola").gauge().value() < tamano) {
+            assertThat(System.currentTimeMillis()).isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+
+    // "Hash" trivial; con bloquear = true cada encode espera a que el test lo libere
+    private class EncoderBloqueante implements PasswordEncoder {
+
+        private final boolean bloquear;
+
+        EncoderBloqueante(boolean bloquear) {
+            this.bloquear = bloquear;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (bloquear) {
+                enHash.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.flaco.hooked.infrastructure.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVerificadoCacheTest {
+
+    private TokenVerificadoCache cache;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void crearCache() {
+        cache = new TokenVerificadoCache();
+        ReflectionTestUtils.setField(cache, "maxEntradas", 100);
+        ReflectionTestUtils.setField(cache, "ttlMs", 900_000L);
+        ReflectionTestUtils.setField(cache, "jwtExpirationMs", 900_000L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(cache, "jdbcTemplate", jdbcTemplate);
+        cache.registrarMetricas();
+    }
+
+    @Test
+    void devuelveElPrincipalGuardado() {
+        UsuarioPrincipal juan = principal(1L);
+        cache.guardar("token-juan", juan, Instant.now().minusSeconds(10), Instant.now().plusSeconds(600));
+
+        assertThat(cache.obtener("token-juan")).isSameAs(juan);
+        assertThat(cache.obtener("otro-token")).isNull();
+    }
+
+    @Test
+    void noGuardaUnTokenYaVencido() {
+        cache.guardar("vencido", principal(1L), Instant.now().minusSeconds(900), Instant.now().minusSeconds(1));
+
+        assertThat(cache.obtener("vencido")).isNull();
+    }
+
+    @Test
+    void revocarUsuarioSacaSusTokensYRespetaLosDeOtros() {
+        Instant emitido = Instant.now().minusSeconds(10);
+        Instant expira = Instant.now().plusSeconds(600);
+        cache.guardar("juan-1", principal(1L), emitido, expira);
+        cache.guardar("juan-2", principal(1L), emitido, expira);
+        cache.guardar("ana", principal(2L), emitido, expira);
+
+        cache.revocarUsuario(1L);
+
+        assertThat(cache.obtener("juan-1")).isNull();
+        assertThat(cache.obtener("juan-2")).isNull();
+        assertThat(cache.obtener("ana")).isNotNull();
+    }
+
+    @Test
+    void unTokenEmitidoAntesDeLaRevocacionNoVuelveAEntrar() {
+        // Verificación en curso que termina de guardar justo después del logout-all
+        Instant emitido = Instant.now().minusSeconds(10);
+        cache.revocarUsuario(1L);
+        cache.guardar("juan", principal(1L), emitido, Instant.now().plusSeconds(600));
+
+        assertThat(cache.obtener("juan")).isNull();
+        assertThat(cache.estaRevocado(1L, emitido)).isTrue();
+    }
+
+    @Test
+    void losTokensEmitidosDespuesDeLaRevocacionSiguenValiendo() {
+        cache.revocarUsuario(1L);
+
+        assertThat(cache.estaRevocado(1L, Instant.now())).isFalse();
+        assertThat(cache.estaRevocado(1L, Instant.now().plusSeconds(1))).isFalse();
+        assertThat(cache.estaRevocado(2L, Instant.now().minusSeconds(60))).isFalse();
+    }
+
+    @Test
+    void laRevocacionSeGuardaEnBdParaLasDemasInstancias() {
+        long antes = Instant.now().getEpochSecond();
+
+        cache.revocarUsuario(1L);
+
+        verify(jdbcTemplate).update(contains("INSERT INTO tokens_revocados"), eq(1L),
+                longThat(desde -> desde >= antes));
+    }
+
+    @Test
+    void sincronizarAplicaLasRevocacionesDeOtraInstancia() throws Exception {
+        Instant emitido = Instant.now().minusSeconds(10);
+        cache.guardar("juan", principal(1L), emitido, Instant.now().plusSeconds(600));
+        cache.guardar("ana", principal(2L), emitido, Instant.now().plusSeconds(600));
+
+        // Fila escrita por otra instancia al hacer logout-all
+        ResultSet fila = mock(ResultSet.class);
+        when(fila.getLong("usuario_id")).thenReturn(1L);
+        when(fila.getLong("revocado_desde")).thenReturn(Instant.now().getEpochSecond());
+        doAnswer(invocacion -> {
+            invocacion.<RowCallbackHandler>getArgument(1).processRow(fila);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM tokens_revocados"), any(RowCallbackHandler.class), anyLong());
+
+        cache.sincronizarRevocaciones();
+
+        assertThat(cache.obtener("juan")).isNull();
+        assertThat(cache.estaRevocado(1L, emitido)).isTrue();
+        assertThat(cache.obtener("ana")).isNotNull();
+    }
+
+    private static UsuarioPrincipal principal(Long id) {
+        return new UsuarioPrincipal(id, "usuario" + id + "@hooked.com", "Usuario " + id, List.of("ROLE_USER"));
+    }
+}